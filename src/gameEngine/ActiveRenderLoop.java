@@ -0,0 +1,120 @@
+package gameEngine;
+
+import java.awt.Canvas;
+import java.awt.DisplayMode;
+import java.awt.EventQueue;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Draws the frames of a game component onto a canvas at the refresh rate of the screen,
+ * independently of the simulation ticks.
+ *
+ * Frames are drawn into the back buffer of a BufferStrategy, which lives in video memory
+ * (as a VolatileImage) where the screen supports it, and then shown in one flip or copy.
+ * The loop runs on its own thread to keep time, but each frame is drawn on the event dispatch thread,
+ * where the component keeps its camera and the render snapshot on screen.
+ * The game itself ticks on the simulation thread and never waits for a frame.
+ */
+class ActiveRenderLoop implements Runnable {
+    /**
+     * Used when the screen does not report its refresh rate.
+     */
+    private static final int DEFAULT_REFRESH_RATE = 60;
+    private static final int NUM_BUFFERS = 2;
+
+    private GameComponent gameComponent;
+    private Canvas canvas;
+    private BufferStrategy strategy;
+    private long framePeriodNanos;
+    private volatile boolean running;
+
+    /**
+     * Constructs a render loop for the given component, drawing on the given canvas.
+     * The canvas must already be displayable, i.e. in a window that has been shown.
+     *
+     * @param gameComponent the component that draws each frame
+     * @param canvas the canvas to draw on
+     */
+    ActiveRenderLoop(GameComponent gameComponent, Canvas canvas) {
+        this.gameComponent = gameComponent;
+        this.canvas = canvas;
+        this.canvas.createBufferStrategy(NUM_BUFFERS);
+        this.strategy = this.canvas.getBufferStrategy();
+
+        int refreshRate = DEFAULT_REFRESH_RATE;
+        DisplayMode displayMode = this.canvas.getGraphicsConfiguration().getDevice().getDisplayMode();
+        if (displayMode.getRefreshRate() != DisplayMode.REFRESH_RATE_UNKNOWN) {
+            refreshRate = displayMode.getRefreshRate();
+        }
+        this.framePeriodNanos = 1_000_000_000L / refreshRate;
+        this.running = false;
+    }
+
+    /**
+     * Starts drawing frames on a new daemon thread.
+     */
+    void start() {
+        this.running = true;
+        Thread thread = new Thread(this, "Render loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops drawing frames after the current one.
+     */
+    void stop() {
+        this.running = false;
+    }
+
+    @Override
+    public void run() {
+        long nextFrame = System.nanoTime();
+        while (this.running) {
+            try {
+                EventQueue.invokeAndWait(this::renderFrame);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException("Error drawing a frame", e.getCause());
+            }
+
+            nextFrame += this.framePeriodNanos;
+            long now = System.nanoTime();
+            if (nextFrame < now) {
+                // Running behind, e.g. after a long frame: skip the missed frames rather than rushing to catch up
+                nextFrame = now;
+            } else {
+                LockSupport.parkNanos(nextFrame - now);
+            }
+        }
+    }
+
+    /**
+     * Draws one frame into the back buffer and shows it,
+     * drawing again if the buffer's video memory was lost in the meantime.
+     */
+    private void renderFrame() {
+        if (!this.canvas.isDisplayable()) {
+            return;
+        }
+        do {
+            do {
+                Graphics2D g2d = (Graphics2D) this.strategy.getDrawGraphics();
+                try {
+                    this.gameComponent.renderFrame(g2d);
+                } finally {
+                    g2d.dispose();
+                }
+            } while (this.strategy.contentsRestored());
+            this.strategy.show();
+        } while (this.strategy.contentsLost());
+        // Flush the frame to the screen now, rather than when the window system gets to it
+        Toolkit.getDefaultToolkit().sync();
+    }
+}
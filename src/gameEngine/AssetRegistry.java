@@ -0,0 +1,69 @@
+package gameEngine;
+
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads fonts once and serves them, and every size derived from them, from a shared cache,
+ * so painting never reads or parses a font file.
+ *
+ * A font that cannot be loaded is reported once and replaced by a monospaced font of the same size.
+ */
+public class AssetRegistry {
+    /**
+     * The font of every text drawn in the game.
+     */
+    public static final String GAME_FONT_FILE = "resources/fonts/PressStart2P-Regular.ttf";
+    private static final String FALLBACK_FONT_NAME = "Monospaced";
+
+    private static final ConcurrentHashMap<String, Font> baseFonts = new ConcurrentHashMap<String, Font>();
+    private static final ConcurrentHashMap<String, Font> derivedFonts = new ConcurrentHashMap<String, Font>();
+
+    private AssetRegistry() {
+    }
+
+    /**
+     * Returns the font in the given TrueType file, at the given size.
+     *
+     * @param fontFilePath the font file
+     * @param size the font size, in points
+     * @return the font, or a monospaced font of that size if the file cannot be loaded
+     */
+    public static Font getFont(String fontFilePath, float size) {
+        return derivedFonts.computeIfAbsent(fontFilePath + "@" + size,
+                key -> getBaseFont(fontFilePath).deriveFont(Font.PLAIN, size));
+    }
+
+    /**
+     * Returns the game font at the given size.
+     *
+     * @param size the font size, in points
+     * @return the game font
+     */
+    public static Font getGameFont(float size) {
+        return getFont(GAME_FONT_FILE, size);
+    }
+
+    private static Font getBaseFont(String fontFilePath) {
+        return baseFonts.computeIfAbsent(fontFilePath, AssetRegistry::loadFont);
+    }
+
+    private static Font loadFont(String fontFilePath) {
+        try {
+            // Load the font from a file
+            Font font = Font.createFont(Font.TRUETYPE_FONT, new File(fontFilePath));
+            // Register the font with the GraphicsEnvironment, so it can also be found by name
+            if (!GraphicsEnvironment.isHeadless()) {
+                GraphicsEnvironment.getLocalGraphicsEnvironment().registerFont(font);
+            }
+            return font;
+        } catch (IOException | FontFormatException e) {
+            System.err.println("Error loading font from " + fontFilePath + ": " + e.getMessage());
+            return new Font(FALLBACK_FONT_NAME, Font.PLAIN, 1);
+        }
+    }
+}
@@ -4,10 +4,10 @@ package gameEngine;
  * Represents a cell in the grid.
  * Each cell has a row and column index.
  * Cells are square and have a fixed size, determined by 
- * the size of the game window and the number of rows and columns. 
+ * the size of the game window and the number of columns that fit in it. 
  */
 public class Cell {
-    public static final int SQUARE_SIZE = TowerDefenseMain.GAME_WINDOW_SIZE.width / Level.NUM_COLS;
+    public static final int SQUARE_SIZE = TowerDefenseMain.GAME_WINDOW_SIZE.width / Level.SCREEN_COLS;
 
     private int row;
     private int col;
@@ -0,0 +1,283 @@
+package gameEngine;
+
+import java.util.Arrays;
+
+import gameObjects.EnemyStore;
+import gameObjects.ProjectilePool;
+
+/**
+ * A uniform-grid broadphase for collisions, using the same cells as the level.
+ * On large maps, each bucket of the grid covers a square of several cells,
+ * so the grid never has more than MAX_BUCKETS buckets to clear and sum each tick.
+ *
+ * Each tick the grid is rebuilt with a counting sort: every enemy is bucketed
+ * into each cell its bounding box overlaps. A query for a box then only returns
+ * the enemies bucketed into the cells that box overlaps, each enemy at most once.
+ * All storage is reused between ticks, so rebuilding and querying do not allocate
+ * once the arrays have grown to fit the largest wave.
+ *
+ * After a rebuild the grid itself is read-only, so several threads can query it at once
+ * as long as each uses its own Query.
+ */
+public class CollisionGrid {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MAX_BUCKETS = 1 << 14;
+
+    /**
+     * The number of rows and columns of buckets.
+     */
+    private int rows;
+    private int cols;
+    /**
+     * The width and height of a bucket, in pixels.
+     */
+    private int bucketSize;
+    private int numEnemies;
+
+    /**
+     * The entries for cell i are cellEntries[cellStart[i]] up to (but excluding) cellEntries[cellStart[i + 1]].
+     */
+    private int[] cellStart;
+    /**
+     * Enemy indices, grouped by cell.
+     */
+    private int[] cellEntries;
+    /**
+     * Scratch space used while filling cellEntries.
+     */
+    private int[] cellFill;
+
+    private Query defaultQuery;
+
+    /**
+     * Constructs a grid covering a level of the given size.
+     *
+     * @param levelRows the number of rows of cells in the level
+     * @param levelCols the number of columns of cells in the level
+     */
+    public CollisionGrid(int levelRows, int levelCols) {
+        int cellsPerBucket = 1;
+        while (ceilDiv(levelRows, cellsPerBucket) * ceilDiv(levelCols, cellsPerBucket) > MAX_BUCKETS) {
+            cellsPerBucket *= 2;
+        }
+        this.rows = ceilDiv(levelRows, cellsPerBucket);
+        this.cols = ceilDiv(levelCols, cellsPerBucket);
+        this.bucketSize = cellsPerBucket * Cell.SQUARE_SIZE;
+        this.numEnemies = 0;
+        this.cellStart = new int[rows * cols + 1];
+        this.cellFill = new int[rows * cols];
+        this.cellEntries = new int[INITIAL_CAPACITY];
+        this.defaultQuery = new Query();
+    }
+
+    /**
+     * Rebuckets all enemies by the cells their bounding boxes overlap.
+     *
+     * @param enemies the enemies to bucket; query results are indices into this store
+     */
+    public void rebuild(EnemyStore enemies) {
+        Arrays.fill(this.cellStart, 0);
+        this.numEnemies = enemies.size();
+
+        // Count the entries per cell, stored one slot to the right for the prefix sum
+        int numEntries = 0;
+        for (int i = 0; i < enemies.size(); i++) {
+            int minRow = this.toRow(enemies.getBoundsY(i));
+            int maxRow = this.toRow(enemies.getBoundsY(i) + enemies.getHeight(i));
+            int minCol = this.toColumn(enemies.getBoundsX(i));
+            int maxCol = this.toColumn(enemies.getBoundsX(i) + enemies.getWidth(i));
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    this.cellStart[row * this.cols + col + 1]++;
+                    numEntries++;
+                }
+            }
+        }
+        for (int i = 1; i < this.cellStart.length; i++) {
+            this.cellStart[i] += this.cellStart[i - 1];
+        }
+
+        if (this.cellEntries.length < numEntries) {
+            this.cellEntries = new int[Math.max(numEntries, this.cellEntries.length * 2)];
+        }
+
+        System.arraycopy(this.cellStart, 0, this.cellFill, 0, this.cellFill.length);
+        for (int i = 0; i < enemies.size(); i++) {
+            int minRow = this.toRow(enemies.getBoundsY(i));
+            int maxRow = this.toRow(enemies.getBoundsY(i) + enemies.getHeight(i));
+            int minCol = this.toColumn(enemies.getBoundsX(i));
+            int maxCol = this.toColumn(enemies.getBoundsX(i) + enemies.getWidth(i));
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    this.cellEntries[this.cellFill[row * this.cols + col]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the grid's own query, for single-threaded use.
+     *
+     * @return the default query
+     */
+    public Query getDefaultQuery() {
+        return this.defaultQuery;
+    }
+
+    private int toRow(double y) {
+        return Math.max(0, Math.min(this.rows - 1, (int) Math.floor(y / this.bucketSize)));
+    }
+
+    private int toColumn(double x) {
+        return Math.max(0, Math.min(this.cols - 1, (int) Math.floor(x / this.bucketSize)));
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    /**
+     * The scratch state of a query against the grid: which enemies were already returned,
+     * the candidates of the last query, and the hits found by collectHits.
+     * Each thread querying the grid needs its own Query.
+     */
+    public class Query {
+        /**
+         * For each enemy index, the stamp of the last query that returned it.
+         */
+        private int[] lastQueryStamp;
+        private int queryStamp;
+
+        private int[] candidates;
+        private int numCandidates;
+
+        /**
+         * The hits found by the last call to collectHits, as (projectile, enemy) index pairs.
+         */
+        private int[] hitProjectiles;
+        private int[] hitEnemies;
+        private int numHits;
+
+        public Query() {
+            this.lastQueryStamp = new int[INITIAL_CAPACITY];
+            this.queryStamp = 0;
+            this.candidates = new int[INITIAL_CAPACITY];
+            this.numCandidates = 0;
+            this.hitProjectiles = new int[INITIAL_CAPACITY];
+            this.hitEnemies = new int[INITIAL_CAPACITY];
+            this.numHits = 0;
+        }
+
+        /**
+         * Collects the enemies bucketed into any cell overlapped by the given box.
+         * The candidates are then read with getCandidate(0) ... getCandidate(count - 1).
+         *
+         * @param x the left edge of the box, in pixels
+         * @param y the top edge of the box, in pixels
+         * @param width the width of the box, in pixels
+         * @param height the height of the box, in pixels
+         * @return the number of candidates found
+         */
+        public int run(double x, double y, double width, double height) {
+            this.numCandidates = 0;
+            if (x + width < 0 || y + height < 0 || x >= cols * bucketSize || y >= rows * bucketSize) {
+                return 0;
+            }
+
+            if (this.lastQueryStamp.length < numEnemies) {
+                this.lastQueryStamp = new int[Math.max(numEnemies, this.lastQueryStamp.length * 2)];
+                this.candidates = new int[this.lastQueryStamp.length];
+                this.queryStamp = 0;
+            }
+            this.queryStamp++;
+            if (this.queryStamp == 0) {
+                // The stamp wrapped around, so old stamps could collide with new ones
+                Arrays.fill(this.lastQueryStamp, 0);
+                this.queryStamp = 1;
+            }
+
+            int minRow = toRow(y);
+            int maxRow = toRow(y + height);
+            int minCol = toColumn(x);
+            int maxCol = toColumn(x + width);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int col = minCol; col <= maxCol; col++) {
+                    int cellIndex = row * cols + col;
+                    for (int i = cellStart[cellIndex]; i < cellStart[cellIndex + 1]; i++) {
+                        int enemyIndex = cellEntries[i];
+                        if (this.lastQueryStamp[enemyIndex] != this.queryStamp) {
+                            this.lastQueryStamp[enemyIndex] = this.queryStamp;
+                            this.candidates[this.numCandidates++] = enemyIndex;
+                        }
+                    }
+                }
+            }
+            return this.numCandidates;
+        }
+
+        /**
+         * Returns the index (into the store passed to rebuild) of a candidate from the last query.
+         *
+         * @param i the candidate number, from 0 to the count returned by run
+         * @return the enemy index
+         */
+        public int getCandidate(int i) {
+            return this.candidates[i];
+        }
+
+        /**
+         * Finds every (projectile, enemy) pair that collides, for projectiles from (inclusive) to to (exclusive).
+         * Only reads the projectiles and enemies; the hits are read back with getHitProjectile and getHitEnemy.
+         *
+         * @param projectiles the projectiles in flight
+         * @param enemies the enemies the grid was rebuilt from
+         * @param from the first projectile index
+         * @param to one past the last projectile index
+         * @param swept true to test the path each projectile traveled during the tick
+         * @return the number of hits found
+         */
+        public int collectHits(ProjectilePool projectiles, EnemyStore enemies, int from, int to, boolean swept) {
+            this.numHits = 0;
+            for (int p = from; p < to; p++) {
+                int count;
+                if (swept) {
+                    count = this.run(projectiles.getSweptBoundsX(p), projectiles.getSweptBoundsY(p),
+                            projectiles.getSweptBoundsWidth(p), projectiles.getSweptBoundsHeight(p));
+                } else {
+                    count = this.run(projectiles.getBoundsX(p), projectiles.getBoundsY(p),
+                            projectiles.getBoundsWidth(p), projectiles.getBoundsHeight(p));
+                }
+                for (int i = 0; i < count; i++) {
+                    int e = this.candidates[i];
+                    boolean hit = swept ? projectiles.intersectsSwept(p, enemies, e) : projectiles.intersects(p, enemies, e);
+                    if (hit) {
+                        this.addHit(p, e);
+                    }
+                }
+            }
+            return this.numHits;
+        }
+
+        private void addHit(int p, int e) {
+            if (this.numHits == this.hitProjectiles.length) {
+                this.hitProjectiles = Arrays.copyOf(this.hitProjectiles, this.numHits * 2);
+                this.hitEnemies = Arrays.copyOf(this.hitEnemies, this.numHits * 2);
+            }
+            this.hitProjectiles[this.numHits] = p;
+            this.hitEnemies[this.numHits] = e;
+            this.numHits++;
+        }
+
+        public int getNumHits() {
+            return this.numHits;
+        }
+
+        public int getHitProjectile(int i) {
+            return this.hitProjectiles[i];
+        }
+
+        public int getHitEnemy(int i) {
+            return this.hitEnemies[i];
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package gameEngine;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The parts of the screen (or of the level) that changed since they were last painted,
+ * collected as rectangles so only those parts need to be painted again.
+ *
+ * Rectangles are stored as plain ints while they are added, since a busy tick adds one or two per moving entity.
+ * getRectangles merges overlapping rectangles into a few larger ones; if there are still too many,
+ * or far too many were added to be worth merging, it returns their bounding box instead.
+ * A region can also be marked as covering everything, e.g. after the level changes.
+ */
+public class DirtyRegion {
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * More rectangles than this are not merged one by one, but replaced by their bounding box.
+     */
+    private static final int MAX_MERGED_RECTANGLES = 256;
+    /**
+     * Painting more separate rectangles than this costs more than painting their bounding box once.
+     */
+    private static final int MAX_RECTANGLES = 16;
+
+    /**
+     * The x, y, width, and height of each rectangle, one after another.
+     */
+    private int[] bounds;
+    private int size;
+    private boolean everything;
+
+    public DirtyRegion() {
+        this.bounds = new int[4 * INITIAL_CAPACITY];
+        this.size = 0;
+        this.everything = false;
+    }
+
+    /**
+     * Adds a changed rectangle. Empty rectangles are ignored.
+     *
+     * @param x the left edge
+     * @param y the top edge
+     * @param width the width
+     * @param height the height
+     */
+    public void add(int x, int y, int width, int height) {
+        if (this.everything || width <= 0 || height <= 0) {
+            return;
+        }
+        if (4 * this.size == this.bounds.length) {
+            this.bounds = Arrays.copyOf(this.bounds, 2 * this.bounds.length);
+        }
+        int offset = 4 * this.size++;
+        this.bounds[offset] = x;
+        this.bounds[offset + 1] = y;
+        this.bounds[offset + 2] = width;
+        this.bounds[offset + 3] = height;
+    }
+
+    /**
+     * Adds every rectangle of another region, moved by the given offset,
+     * e.g. to turn level coordinates into screen coordinates.
+     *
+     * @param other the region to add
+     * @param dx the horizontal offset
+     * @param dy the vertical offset
+     */
+    public void addAll(DirtyRegion other, int dx, int dy) {
+        if (other.everything) {
+            this.addEverything();
+            return;
+        }
+        for (int i = 0; i < other.size; i++) {
+            int offset = 4 * i;
+            this.add(other.bounds[offset] + dx, other.bounds[offset + 1] + dy,
+                    other.bounds[offset + 2], other.bounds[offset + 3]);
+        }
+    }
+
+    /**
+     * Marks the region as covering everything, so everything is painted again.
+     */
+    public void addEverything() {
+        this.everything = true;
+        this.size = 0;
+    }
+
+    public boolean isEverything() {
+        return this.everything;
+    }
+
+    public boolean isEmpty() {
+        return !this.everything && this.size == 0;
+    }
+
+    /**
+     * Returns a few rectangles covering every rectangle added since the last clear.
+     * Overlapping rectangles are merged, so no part is painted twice.
+     * Not meaningful if isEverything() is true.
+     *
+     * @return the rectangles to paint, at most MAX_RECTANGLES of them
+     */
+    public List<Rectangle> getRectangles() {
+        ArrayList<Rectangle> merged = new ArrayList<Rectangle>();
+        if (this.size == 0) {
+            return merged;
+        }
+        if (this.size > MAX_MERGED_RECTANGLES) {
+            merged.add(this.getBounds());
+            return merged;
+        }
+        for (int i = 0; i < this.size; i++) {
+            int offset = 4 * i;
+            Rectangle rectangle = new Rectangle(this.bounds[offset], this.bounds[offset + 1],
+                    this.bounds[offset + 2], this.bounds[offset + 3]);
+            // Merging can make the rectangle overlap ones it did not overlap before, so repeat until it overlaps none
+            boolean grown = true;
+            while (grown) {
+                grown = false;
+                for (int j = merged.size() - 1; j >= 0; j--) {
+                    if (merged.get(j).intersects(rectangle)) {
+                        rectangle.add(merged.remove(j));
+                        grown = true;
+                    }
+                }
+            }
+            merged.add(rectangle);
+        }
+        if (merged.size() > MAX_RECTANGLES) {
+            merged.clear();
+            merged.add(this.getBounds());
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the bounding box of every rectangle added since the last clear.
+     *
+     * @return the bounding box
+     */
+    public Rectangle getBounds() {
+        Rectangle union = null;
+        for (int i = 0; i < this.size; i++) {
+            int offset = 4 * i;
+            Rectangle rectangle = new Rectangle(this.bounds[offset], this.bounds[offset + 1],
+                    this.bounds[offset + 2], this.bounds[offset + 3]);
+            if (union == null) {
+                union = rectangle;
+            } else {
+                union.add(rectangle);
+            }
+        }
+        return union == null ? new Rectangle() : union;
+    }
+
+    /**
+     * Empties the region, e.g. once it has been painted.
+     */
+    public void clear() {
+        this.size = 0;
+        this.everything = false;
+    }
+}
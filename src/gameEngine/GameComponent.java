@@ -7,56 +7,203 @@ import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
-public class GameComponent extends JComponent implements MouseListener, KeyListener, ActionListener {
+import gameObjects.SpriteAtlas;
+import replay.ReplayRecorder;
+
+public class GameComponent extends JComponent implements MouseListener, KeyListener, ActionListener, GameStateListener {
     private static final long serialVersionUID = 1L;
 
     private static final int WAVE_START_MESSAGE_TICKS = 40;
+    private static final float FONT_SIZE = 18;
+    /**
+     * How long the program waits on exit for the simulation thread to finish a replay. 
+     * A replay that is not finished can still be played; its index is rebuilt when it is opened. 
+     */
+    private static final int REPLAY_CLOSE_TIMEOUT_SECONDS = 5;
 
+    /**
+     * Only touched on the simulation thread run by the wave timer, once the game has started; 
+     * everything on the event dispatch thread is painted from render snapshots. 
+     */
     private GameState gameState;
     private WaveTimer waveTimer;
+    /**
+     * The render snapshot on screen, and its sequence number and tick. 
+     */
+    private RenderSnapshot snapshot;
+    private long snapshotSequence;
+    private long snapshotTick;
 
     private int waveStartMessageTicksRemaining;
 
+    /**
+     * The top left corner of the part of the level in view, in pixels. 
+     * Levels larger than the window are scrolled with the arrow keys. 
+     */
+    private int cameraX;
+    private int cameraY;
+
+    /**
+     * The screen areas to repaint after the current tick or input. 
+     */
+    private DirtyRegion screenChanges;
+    /**
+     * The screen area of the wave start message while it is shown, or null. 
+     */
+    private Rectangle waveMessageArea;
+
+    /**
+     * The canvas frames are drawn on in active rendering mode, or null when Swing paints the component. 
+     */
+    private Canvas canvas;
+    private ActiveRenderLoop renderLoop;
+
     public GameComponent() {
-        this.gameState = new GameState();
+        this(new Level(GameState.FIRST_LEVEL_FILE));
+    }
+
+    /**
+     * Constructs a game component starting at the given level, e.g. the first level of a level pack. 
+     * 
+     * @param firstLevel the level to start at
+     */
+    public GameComponent(Level firstLevel) {
+        this.gameState = new GameState(firstLevel, this);
+        // Level transitions happen while the game is running, so load each next level ahead of time
+        this.gameState.setPrefetchingLevels(true);
+        // Only repaint the parts of the screen that change each tick
+        this.gameState.setTrackingChanges(true);
+        // The game runs on its own thread, and is painted from the snapshots it publishes
+        this.gameState.setPublishingRenderSnapshots(true);
+        this.snapshot = this.gameState.getRenderSnapshots().acquireLatest();
+        this.snapshotSequence = this.snapshot.getSequence();
+        this.snapshotTick = this.snapshot.getTick();
+        this.screenChanges = new DirtyRegion();
+        this.waveMessageArea = null;
         this.waveStartMessageTicksRemaining = 0;
         this.waveTimer = new WaveTimer(this, this.gameState);
+        this.cameraX = 0;
+        this.cameraY = 0;
+        this.canvas = null;
+        this.renderLoop = null;
         this.addMouseListener(this);
         this.addKeyListener(this);
+        this.setFocusable(true);
+        // Sprites load in the background, so show each one as soon as it is ready, even between waves
+        SpriteAtlas.addLoadListener(this::repaint);
+    }
+
+    /**
+     * Switches to active rendering: from now on, frames are drawn onto a canvas covering this component 
+     * at the refresh rate of the screen, with moving entities interpolated between the last two ticks, 
+     * rather than painted by Swing after each tick. The tick rate does not change. 
+     * Must be called on the event dispatch thread, once the component is in a window that has been shown. 
+     */
+    public void startActiveRendering() {
+        if (this.canvas != null) {
+            return;
+        }
+        this.canvas = new Canvas();
+        // The render loop redraws everything each frame, so Swing never needs to
+        this.canvas.setIgnoreRepaint(true);
+        this.canvas.addMouseListener(this);
+        this.canvas.addKeyListener(this);
+        this.setLayout(new BorderLayout());
+        this.add(this.canvas, BorderLayout.CENTER);
+        this.validate();
+        this.waveTimer.execute(() -> this.gameState.setTrackingChanges(false));
+
+        this.renderLoop = new ActiveRenderLoop(this, this.canvas);
+        this.renderLoop.start();
+        this.canvas.requestFocusInWindow();
+    }
+
+    /**
+     * Resumes active rendering when the component is shown again after being removed from its window. 
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (this.canvas != null && this.renderLoop == null) {
+            this.renderLoop = new ActiveRenderLoop(this, this.canvas);
+            this.renderLoop.start();
+        }
+    }
+
+    /**
+     * Stops the render loop when the component is removed from its window or the window is disposed, 
+     * since the canvas can no longer be drawn on. 
+     */
+    @Override
+    public void removeNotify() {
+        if (this.renderLoop != null) {
+            this.renderLoop.stop();
+            this.renderLoop = null;
+        }
+        super.removeNotify();
+    }
+
+    /**
+     * Draws a whole frame in active rendering mode, called by the render loop on the event dispatch thread. 
+     * 
+     * @param g2d the Graphics2D object of the back buffer
+     */
+    void renderFrame(Graphics2D g2d) {
+        this.acquireSnapshot();
+        // The render loop draws everything each frame
+        this.screenChanges.clear();
+        g2d.setColor(this.getBackground());
+        g2d.fillRect(0, 0, this.canvas.getWidth(), this.canvas.getHeight());
+        this.drawFrame(g2d, this.getTickProgress());
+    }
+
+    /**
+     * Returns how far the next tick is along, from 0 just after a tick to 1 when the next tick is due, 
+     * or 1 between waves, when nothing moves. 
+     */
+    private double getTickProgress() {
+        if (!this.snapshot.isActiveWave()) {
+            return 1.0;
+        }
+        double progress = (System.nanoTime() - this.snapshot.getTickNanos()) / (WaveTimer.DELAY_MS * 1_000_000.0);
+        return Math.max(0.0, Math.min(1.0, progress));
     }
 
     public void paintComponent(Graphics g) {
-        Graphics2D g2d = (Graphics2D) g;
+        this.drawFrame((Graphics2D) g, 1.0);
+    }
 
+    /**
+     * Draws the part of the level in view and the HUD. 
+     * 
+     * @param g2d the Graphics2D object to draw on
+     * @param tickProgress how far the next tick is along, from 0 (draw the previous positions) to 1 (the current ones)
+     */
+    private void drawFrame(Graphics2D g2d, double tickProgress) {
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
 
-        // Set custom font
-        int fontSize = 18;
-        String fontFilePath = "resources/fonts/PressStart2P-Regular.ttf";
-
-        try {
-            // Load the font from a file
-            Font customFont = Font.createFont(Font.TRUETYPE_FONT, new File(fontFilePath));
-            // Register the font with the GraphicsEnvironment (optional, but good practice)
-            GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            ge.registerFont(customFont);
-            // Derive a new font with the desired size
-            g2d.setFont(customFont.deriveFont(Font.PLAIN, fontSize));
-        } catch (IOException | FontFormatException e) {
-            System.err.println("Error loading font from " + fontFilePath + ": " + e.getMessage());
-            // Handle the error (e.g., return a default font)
-            g2d.setFont(new Font("Monospaced", Font.PLAIN, fontSize));
-        }
+        // Set custom font, loaded once by the asset registry
+        g2d.setFont(AssetRegistry.getGameFont(FONT_SIZE));
 
-        this.gameState.drawAll(g2d);
+        this.clampCamera();
+        g2d.translate(-this.cameraX, -this.cameraY);
+        this.snapshot.drawWorld(g2d, tickProgress);
+        g2d.translate(this.cameraX, this.cameraY);
+        this.snapshot.drawHUD(g2d);
 
         this.drawWaveMessage(g2d);
     }
@@ -69,22 +216,128 @@ public class GameComponent extends JComponent implements MouseListener, KeyListe
             g2d.setColor(new Color(gray, gray, gray));
             int xOffset = Cell.SQUARE_SIZE;
             int yOffset = -Cell.SQUARE_SIZE / 2;
-            g2d.drawString("Wave " + this.gameState.getCurrentWaveNumber(), this.getWidth() / 2 - xOffset, this.getHeight() / 2 + yOffset);
-            this.waveStartMessageTicksRemaining--;
+            g2d.drawString("Wave " + this.snapshot.getWaveNumber(), this.getWidth() / 2 - xOffset, this.getHeight() / 2 + yOffset);
+        }
+    }
+
+    /**
+     * Switches to the latest render snapshot, if a newer one was published, 
+     * adding the screen areas that changed since the one on screen and counting down the wave start message. 
+     */
+    private void acquireSnapshot() {
+        RenderSnapshot latest = this.gameState.getRenderSnapshots().acquireLatest();
+        if (latest.getSequence() == this.snapshotSequence) {
+            return;
+        }
+        if (latest.getSequence() == this.snapshotSequence + 1) {
+            latest.addScreenChanges(this.screenChanges, this.cameraX, this.cameraY);
+        } else {
+            // The changes of the skipped snapshots were never painted
+            this.screenChanges.addEverything();
+        }
+        if (latest.getTick() > this.snapshotTick) {
+            long ticks = latest.getTick() - this.snapshotTick;
+            this.waveStartMessageTicksRemaining = (int) Math.max(0, this.waveStartMessageTicksRemaining - ticks);
+        }
+        this.snapshot = latest;
+        this.snapshotSequence = latest.getSequence();
+        this.snapshotTick = latest.getTick();
+    }
+
+    /**
+     * Repaints every part of the screen that changed since the last repaint: 
+     * moved, hit, or removed entities, changed towers, the HUD, and the wave start message. 
+     * Each area is painted on its own, so the rest of the screen is not drawn again. 
+     * Called on the event dispatch thread after each render snapshot is published. 
+     */
+    public void repaintChanges() {
+        if (this.canvas != null) {
+            // The render loop draws every frame anyway
+            return;
         }
+        this.acquireSnapshot();
+        if (this.waveMessageArea != null) {
+            this.screenChanges.add(this.waveMessageArea.x, this.waveMessageArea.y, 
+                    this.waveMessageArea.width, this.waveMessageArea.height);
+            if (this.waveStartMessageTicksRemaining == 0) {
+                // Erased by this repaint
+                this.waveMessageArea = null;
+            }
+        }
+
+        if (this.screenChanges.isEverything()) {
+            this.repaint();
+        } else {
+            for (Rectangle area : this.screenChanges.getRectangles()) {
+                this.paintImmediately(area);
+            }
+        }
+        this.screenChanges.clear();
+    }
+
+    /**
+     * Returns the screen area of the wave start message, with room for its largest wave number. 
+     */
+    private Rectangle getWaveMessageArea() {
+        FontMetrics metrics = this.getFontMetrics(AssetRegistry.getGameFont(FONT_SIZE));
+        String widestMessage = "Wave " + this.snapshot.getTotalWaves();
+        int x = this.getWidth() / 2 - Cell.SQUARE_SIZE;
+        int baseline = this.getHeight() / 2 - Cell.SQUARE_SIZE / 2;
+        return new Rectangle(x - 2, baseline - metrics.getAscent() - 2, 
+                metrics.stringWidth(widestMessage) + 4, metrics.getAscent() + metrics.getDescent() + 4);
+    }
+
+    /**
+     * Records the rest of this game to a replay file, which is completed when the program exits.
+     * Turns on fixed-point kinematics first, so the replay plays out the same on any machine.
+     *
+     * @param filename the file to write the replay to
+     * @throws IOException if the file cannot be written
+     */
+    public void startRecording(String filename) throws IOException {
+        // Replays are played back on other machines, where Math trig in double precision may fly projectiles differently
+        this.gameState.setFixedPointKinematics(true);
+        ReplayRecorder recorder = new ReplayRecorder(filename, this.gameState, ReplayRecorder.DEFAULT_KEYFRAME_INTERVAL);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            // The simulation thread writes to the replay on every tick, so finish it there, between ticks
+            Future<?> finished = this.waveTimer.submit(() -> {
+                this.gameState.setInputListener(null);
+                try {
+                    recorder.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            try {
+                finished.get(REPLAY_CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                System.err.println("Error finishing replay " + filename + ": " + e.getCause().getMessage());
+            } catch (InterruptedException | TimeoutException e) {
+                System.err.println("Gave up finishing replay " + filename);
+            }
+        }));
     }
 
     public void setSelectedTowerType(String towerType) {
-        this.gameState.setSelectedTowerType(towerType);
+        this.waveTimer.execute(() -> this.gameState.setSelectedTowerType(towerType));
     }
 
+    /**
+     * Runs one tick, called by the wave timer on the simulation thread. 
+     */
     public void updateGameState() {
         this.gameState.updateState();
     }
 
     public void mouseClicked(MouseEvent e) {
-        this.gameState.placeOrRotateTower(Cell.getCellFromCoordinates(e.getX(), e.getY()), e.getButton() == MouseEvent.BUTTON1);
-        this.repaint();
+        if (this.canvas != null) {
+            this.canvas.requestFocusInWindow();
+        } else {
+            this.requestFocusInWindow();
+        }
+        Cell cell = Cell.getCellFromCoordinates(e.getX() + this.cameraX, e.getY() + this.cameraY);
+        boolean isLeftClick = e.getButton() == MouseEvent.BUTTON1;
+        this.waveTimer.execute(() -> this.gameState.placeOrRotateTower(cell, isLeftClick));
     }
 
     public void mousePressed(MouseEvent e) {
@@ -103,6 +356,33 @@ public class GameComponent extends JComponent implements MouseListener, KeyListe
     }
 
     public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+            this.cameraX -= Cell.SQUARE_SIZE;
+        } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+            this.cameraX += Cell.SQUARE_SIZE;
+        } else if (e.getKeyCode() == KeyEvent.VK_UP) {
+            this.cameraY -= Cell.SQUARE_SIZE;
+        } else if (e.getKeyCode() == KeyEvent.VK_DOWN) {
+            this.cameraY += Cell.SQUARE_SIZE;
+        } else {
+            return;
+        }
+        this.clampCamera();
+        this.repaint();
+    }
+
+    /**
+     * Keeps the camera inside the current level. 
+     */
+    private void clampCamera() {
+        Level level = this.snapshot.getLevel();
+        if (level == null) {
+            return;
+        }
+        int maxX = Math.max(0, level.getColumns() * Cell.SQUARE_SIZE - this.getWidth());
+        int maxY = Math.max(0, level.getRows() * Cell.SQUARE_SIZE - this.getHeight());
+        this.cameraX = Math.max(0, Math.min(maxX, this.cameraX));
+        this.cameraY = Math.max(0, Math.min(maxY, this.cameraY));
     }
 
     public void keyReleased(KeyEvent e) {
@@ -113,26 +393,59 @@ public class GameComponent extends JComponent implements MouseListener, KeyListe
         if (e.getSource() instanceof JButton) {
             JButton button = (JButton) e.getSource();
             if (button.getText().equals("Start Wave")) {
-                if (!this.gameState.isActiveWave()) {
+                if (!this.snapshot.isActiveWave()) {
                     this.displayWaveStartMessage();
                     this.waveTimer.start();
                 }
             } else if (button.getText().equals("Upgrade Tower")) {
-                this.gameState.upgradeSelectedTower();
-                this.repaint();
+                this.waveTimer.execute(() -> this.gameState.upgradeSelectedTower());
             }
         } else if (e.getSource() instanceof JComboBox) {
             JComboBox<String> comboBox = (JComboBox<String>) e.getSource();
-            this.gameState.setSelectedTowerType(comboBox.getSelectedItem().toString());
+            this.setSelectedTowerType(comboBox.getSelectedItem().toString());
         }
     }
 
+    // The game state listener methods are called on the simulation thread, so dialogs are shown on the event dispatch thread
+
+    @Override
+    public void invalidAction(String message) {
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null, message, "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    @Override
+    public void levelCompleted(GameState gameState) {
+        SwingUtilities.invokeLater(() -> {
+            JOptionPane.showMessageDialog(null, "Level Complete! Advancing to next level.");
+            this.waveTimer.execute(() -> {
+                boolean hasNextLevel = gameState.advanceLevel();
+                if (!hasNextLevel) {
+                    SwingUtilities.invokeLater(() -> {
+                        JOptionPane.showMessageDialog(null, "Congratulations! You have completed all levels!");
+                        System.exit(0);
+                    });
+                }
+            });
+        });
+    }
+
+    @Override
+    public void gameOver(GameState gameState) {
+        // Stop the game while the dialog is up
+        this.waveTimer.stop();
+        SwingUtilities.invokeLater(() -> {
+            JOptionPane.showMessageDialog(null, "Game Over! You have run out of lives.");
+            System.exit(0);
+        });
+    }
+
     /**
      * Displays a message to the user that a new wave has started.
      */
     private void displayWaveStartMessage() {
         // Draw the message centered in the screen throughout the next WAVE_START_MESSAGE_TICKS ticks
         this.waveStartMessageTicksRemaining = WAVE_START_MESSAGE_TICKS;
-        this.repaint();
+        this.waveMessageArea = this.getWaveMessageArea();
+        this.repaintChanges();
     }
 }
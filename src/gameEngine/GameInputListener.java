@@ -0,0 +1,61 @@
+package gameEngine;
+
+/**
+ * Receives every player input applied to a GameState, and every tick, e.g. to record a replay.
+ *
+ * Inputs are reported before they are applied, whether or not they turn out to be valid,
+ * so replaying the same inputs at the same ticks reproduces the game exactly.
+ */
+public interface GameInputListener {
+    /**
+     * Called when the player selects a tower type.
+     *
+     * @param gameState the game state receiving the input
+     * @param towerType the selected tower type
+     */
+    void towerTypeSelected(GameState gameState, String towerType);
+
+    /**
+     * Called when the player clicks a cell to place, select, or rotate a tower.
+     *
+     * @param gameState the game state receiving the input
+     * @param cell the clicked cell
+     * @param isLeftClick true for a left click, false for a right click
+     */
+    void towerPlacedOrRotated(GameState gameState, Cell cell, boolean isLeftClick);
+
+    /**
+     * Called when the player upgrades the selected tower.
+     *
+     * @param gameState the game state receiving the input
+     */
+    void towerUpgraded(GameState gameState);
+
+    /**
+     * Called when a wave is started.
+     *
+     * @param gameState the game state receiving the input
+     */
+    void waveStarted(GameState gameState);
+
+    /**
+     * Called when a cleared wave is ended and its budget is paid out.
+     *
+     * @param gameState the game state receiving the input
+     */
+    void waveEnded(GameState gameState);
+
+    /**
+     * Called when the game advances to the next level.
+     *
+     * @param gameState the game state receiving the input
+     */
+    void levelAdvanced(GameState gameState);
+
+    /**
+     * Called after every tick.
+     *
+     * @param gameState the game state that was ticked
+     */
+    void ticked(GameState gameState);
+}
@@ -1,13 +1,17 @@
 package gameEngine;
 
 import java.awt.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-
-import javax.swing.JOptionPane;
-
-import gameObjects.Enemy;
-import gameObjects.GridSnappedObject;
-import gameObjects.Projectile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import gameObjects.EnemyStore;
+import gameObjects.EnemyTemplate;
+import gameObjects.EnemyType;
+import gameObjects.ProjectilePool;
 import gameObjects.Tower;
 import gameObjects.towers.ArcherTower;
 import gameObjects.towers.Cannon;
@@ -20,52 +24,328 @@ import gameObjects.towers.MissileTower;
  * - tracking the selected tower type
  * - tracking the current level
  * - tracking the towers, enemies, and projectiles
- * - tracking the grid objects
  * - handling collisions
  * - updating the game state
  * - drawing the game state
+ * - publishing render snapshots of the game state for another thread to draw
  */
 public class GameState {
     private static final int ENEMY_SPAWN_DELAY_TICKS = 8;
     private static final int BUDGET_WAVE_NUMBER_MULTIPLIER = 1;
     private static final int DEFAULT_NUM_LIVES = 5;
+    /**
+     * An odd constant mixed into the seed to derive each wave's random stream. 
+     * It multiplies the level number and wave number packed into one long, 
+     * so every wave of every level gets its own stream. 
+     */
+    private static final long WAVE_SEED_MULTIPLIER = 0xBF58476D1CE4E5B9L;
+
+    /**
+     * The tower types, as named in the tower type menu and in snapshots. 
+     */
+    public static final String[] TOWER_TYPES = { "Archer", "Missile", "Cannon" };
+
+    /**
+     * The level a new game starts at. 
+     */
+    public static final String FIRST_LEVEL_FILE = "levels/level01.csv";
 
     private int budgetRemaining;
     private int livesRemaining;
+    private int enemiesKilled;
+    private int enemiesLeaked;
+    private int ticksThisWave;
+    /**
+     * The number of ticks since the game started, across every wave and level. 
+     */
+    private long tick;
     private String selectedTowerType;
 
     private Tower selectedTower;
 
     private Level currentLevel;
     private ArrayList<Tower> towers = new ArrayList<Tower>();
-    private ArrayList<Enemy> enemies = new ArrayList<Enemy>();
-    private ArrayList<Projectile> projectiles = new ArrayList<Projectile>();
+    private EnemyStore enemies = new EnemyStore();
+    private ProjectilePool projectiles = new ProjectilePool();
+
+    private CollisionGrid collisionGrid;
+
+    private GameStateListener listener;
+
+    /**
+     * Whether collisions test the whole path a projectile traveled during a tick, 
+     * rather than only where it ended up. 
+     */
+    private boolean sweptCollisions;
+
+    /**
+     * The seed of this game's random streams, the only source of randomness in it (e.g. enemy jitter). 
+     * Each wave draws from its own stream derived from this seed, so the random state 
+     * never has to be saved mid-game, and games with the same seed are reproducible. 
+     * Each game owns its seed, so concurrent games never contend on a shared generator. 
+     */
+    private long randomSeed;
 
-    private GridSnappedObject[][] gridObjects;
+    /**
+     * If not null, receives every player input and every tick, e.g. to record a replay. 
+     */
+    private GameInputListener inputListener;
 
+    /**
+     * If not null, runs the phases of each tick across the threads of a pool. 
+     */
+    private ParallelTick parallelTick;
+
+    /**
+     * Whether the level after the current one is loaded in the background as soon as the current one starts. 
+     */
+    private boolean prefetchingLevels;
+
+    /**
+     * If not null, collects the areas of the level that changed since the last render snapshot, 
+     * so a window only repaints those. 
+     */
+    private DirtyRegion worldChanges;
+    /**
+     * If not null, receives a render snapshot whenever publishRenderSnapshot is called. 
+     */
+    private RenderSnapshotBuffer renderSnapshots;
+    /**
+     * The budget and lives in the last render snapshot. 
+     */
+    private int publishedBudget;
+    private int publishedLives;
+    /**
+     * The snapshot drawAll, drawWorld, and drawHUD draw from, or null if they were never called. 
+     */
+    private RenderSnapshot drawingSnapshot;
 
+    /**
+     * Constructs a game state starting at the first level.
+     * 
+     * @param listener receives rejected actions, completed levels, and game over
+     */
+    public GameState(GameStateListener listener) {
+        this(new Level(FIRST_LEVEL_FILE), listener);
+    }
 
-    public GameState() {
-        this.gridObjects = new GridSnappedObject[Level.NUM_ROWS][Level.NUM_COLS];
+    /**
+     * Constructs a game state starting at the given level. 
+     * 
+     * @param level the level to play
+     * @param listener receives rejected actions, completed levels, and game over
+     */
+    public GameState(Level level, GameStateListener listener) {
         this.selectedTower = null;
         this.selectedTowerType = TowerDefenseMain.DEFAULT_TOWER_TYPE;
-        this.currentLevel = new Level("levels/level01.csv");
+        this.currentLevel = level;
+        this.fitToLevel();
         this.budgetRemaining = this.currentLevel.getBudget();
         this.livesRemaining = DEFAULT_NUM_LIVES;
+        this.enemiesKilled = 0;
+        this.enemiesLeaked = 0;
+        this.ticksThisWave = 0;
+        this.tick = 0;
+        this.listener = listener;
+        this.sweptCollisions = false;
+        this.prefetchingLevels = false;
+        this.randomSeed = new SplittableRandom().nextLong();
+    }
+
+    /**
+     * Turns swept collisions on or off. 
+     * With swept collisions, a projectile hits every enemy its path crossed during the tick, 
+     * so projectiles cannot tunnel through enemies no matter how far they move per tick. 
+     * 
+     * @param sweptCollisions true to test the path traveled, false to test only the end position
+     */
+    public void setSweptCollisions(boolean sweptCollisions) {
+        this.sweptCollisions = sweptCollisions;
+    }
+
+    /**
+     * Turns fixed-point projectile kinematics on or off. 
+     * With fixed-point kinematics, projectile positions are integers in sub-pixel units 
+     * and each velocity is computed once at launch with StrictMath, 
+     * so projectile paths are identical on every machine. 
+     * Only allowed while no projectiles are in flight. 
+     * 
+     * @param fixedPoint true for integer positions, false for double positions
+     */
+    public void setFixedPointKinematics(boolean fixedPoint) {
+        this.projectiles.setFixedPoint(fixedPoint);
+    }
+
+    /**
+     * Sets the seed of this game's random streams. 
+     * Together with fixed-point kinematics, this makes the outcome of a game 
+     * depend only on the seed and the player's actions. 
+     * 
+     * @param seed the random seed
+     */
+    public void setRandomSeed(long seed) {
+        this.randomSeed = seed;
+    }
+
+    /**
+     * Reports every player input and every tick to the given listener from now on. 
+     * 
+     * @param inputListener the listener, or null to stop reporting
+     */
+    public void setInputListener(GameInputListener inputListener) {
+        this.inputListener = inputListener;
+    }
+
+    public long getRandomSeed() {
+        return this.randomSeed;
+    }
+
+    public boolean isSweptCollisions() {
+        return this.sweptCollisions;
+    }
+
+    public boolean isFixedPointKinematics() {
+        return this.projectiles.isFixedPoint();
+    }
+
+    /**
+     * Runs the phases of each tick (advancing enemies, flying projectiles, firing towers, 
+     * and finding collisions) across the threads of the given pool. 
+     * Results are merged in entity order, so the game plays out exactly as it would sequentially. 
+     * 
+     * @param pool the pool to run on, or null to run every tick on the calling thread
+     */
+    public void setParallelism(ForkJoinPool pool) {
+        this.parallelTick = pool == null ? null : new ParallelTick(pool);
+    }
+
+    /**
+     * Turns level prefetching on or off. 
+     * With prefetching, the next level is read and parsed on a background thread 
+     * as soon as the current level starts, so advancing to it does no I/O on the calling thread. 
+     * Games that never advance past their level, e.g. headless simulations, should leave it off. 
+     * 
+     * @param prefetchingLevels true to load each next level in the background
+     */
+    public void setPrefetchingLevels(boolean prefetchingLevels) {
+        this.prefetchingLevels = prefetchingLevels;
+        this.prefetchNextLevel();
+    }
+
+    /**
+     * Turns change tracking on or off. 
+     * With change tracking, the game remembers which areas of the level and the HUD 
+     * changed (moved, hit, or removed entities, placed or rotated towers, the selection, budget and lives), 
+     * so a window can repaint only those areas; each render snapshot carries the changes since the previous one. 
+     * Games that are never drawn should leave it off. 
+     * 
+     * @param tracking true to track changes
+     */
+    public void setTrackingChanges(boolean tracking) {
+        this.worldChanges = tracking ? new DirtyRegion() : null;
+        this.enemies.setChangeRegion(this.worldChanges);
+        this.projectiles.setChangeRegion(this.worldChanges);
+        this.markEverythingChanged();
+    }
+
+    /**
+     * Turns render snapshots on or off. 
+     * With render snapshots, publishRenderSnapshot copies everything a window draws into a RenderSnapshotBuffer, 
+     * so the game can run on one thread while a window paints the latest snapshot on another. 
+     * Publishes the first snapshot right away. 
+     * 
+     * @param publishing true to publish render snapshots
+     */
+    public void setPublishingRenderSnapshots(boolean publishing) {
+        this.renderSnapshots = publishing ? new RenderSnapshotBuffer() : null;
+        this.publishRenderSnapshot();
+    }
+
+    /**
+     * Returns the buffer render snapshots are published to. 
+     * 
+     * @return the buffer, or null if render snapshots are off
+     */
+    public RenderSnapshotBuffer getRenderSnapshots() {
+        return this.renderSnapshots;
+    }
+
+    /**
+     * Publishes a render snapshot of the current state, with the areas that changed since the previous one, 
+     * if render snapshots are on. Called on the thread that runs the game, after each tick or player action. 
+     */
+    public void publishRenderSnapshot() {
+        if (this.renderSnapshots == null) {
+            return;
+        }
+        if (this.worldChanges != null) {
+            this.enemies.addChangedBounds();
+            this.projectiles.addChangedBounds();
+        }
+        RenderSnapshot snapshot = this.renderSnapshots.getBack();
+        snapshot.capture(this, this.worldChanges, 
+                this.budgetRemaining != this.publishedBudget, this.livesRemaining != this.publishedLives);
+        if (this.worldChanges != null) {
+            this.worldChanges.clear();
+        }
+        this.publishedBudget = this.budgetRemaining;
+        this.publishedLives = this.livesRemaining;
+        this.renderSnapshots.publish();
+    }
+
+    private void markEverythingChanged() {
+        if (this.worldChanges != null) {
+            this.worldChanges.addEverything();
+        }
+    }
+
+    /**
+     * Marks the cell of the given tower as changed, covering its barrel, level, and highlight. 
+     */
+    private void markTowerChanged(Tower tower) {
+        if (this.worldChanges != null && tower != null) {
+            this.worldChanges.add(tower.getCell().getPixelX() - 2, tower.getCell().getPixelY() - 2, 
+                    Cell.SQUARE_SIZE + 4, Cell.SQUARE_SIZE + 4);
+        }
+    }
+
+    /**
+     * Sizes the collision grid and the projectile bounds to the current level. 
+     */
+    private void fitToLevel() {
+        this.markEverythingChanged();
+        if (this.currentLevel == null) {
+            return;
+        }
+        this.collisionGrid = new CollisionGrid(this.currentLevel.getRows(), this.currentLevel.getColumns());
+        this.projectiles.setBounds(this.currentLevel.getColumns() * Cell.SQUARE_SIZE,
+                this.currentLevel.getRows() * Cell.SQUARE_SIZE);
+    }
+
+    private void prefetchNextLevel() {
+        if (this.prefetchingLevels && this.currentLevel != null) {
+            this.currentLevel.prefetchNextLevel();
+        }
     }
     
+    /**
+     * Collides every projectile with every enemy whose bounding box it overlaps. 
+     * The collision grid narrows each projectile down to the enemies in nearby cells, 
+     * so the cost grows with the number of entities rather than with their product. 
+     */
     private void handleCollisions() {
-        for (Enemy enemy : this.enemies) {
-            for (Projectile projectile : this.projectiles) {
-                if (projectile.intersects(enemy)) {
-                    projectile.collideWith(enemy);
-                }
-            }
+        this.collisionGrid.rebuild(this.enemies);
+        if (this.parallelTick != null) {
+            this.parallelTick.collide(this.collisionGrid, this.projectiles, this.enemies, this.sweptCollisions);
+        } else {
+            CollisionGrid.Query query = this.collisionGrid.getDefaultQuery();
+            query.collectHits(this.projectiles, this.enemies, 0, this.projectiles.size(), this.sweptCollisions);
+            ParallelTick.applyHits(query, this.projectiles, this.enemies);
         }
 
         // Clean up removed objects
-        this.enemies.removeIf(Enemy::shouldRemove);
-        this.projectiles.removeIf(Projectile::shouldRemove);
+        this.enemiesKilled += this.enemies.removeMarked();
+        this.projectiles.removeMarked();
     }
 
     /**
@@ -75,13 +355,16 @@ public class GameState {
      * @param cell
      */
     public void placeOrRotateTower(Cell cell, boolean isLeftClick) {
+        if (this.inputListener != null) {
+            this.inputListener.towerPlacedOrRotated(this, cell, isLeftClick);
+        }
         if (this.selectedTowerType == null) {
             return;
         }
 
         // Deny if invalid tower location
         if (!this.currentLevel.isValidTowerLocation(cell)) {
-            JOptionPane.showMessageDialog(null, "Invalid tower location!", "Error", JOptionPane.ERROR_MESSAGE);
+            this.listener.invalidAction("Invalid tower location!");
             return;
         }
 
@@ -92,22 +375,27 @@ public class GameState {
             }
             if (tower == this.selectedTower) {
                 tower.rotate(isLeftClick);
+                this.markTowerChanged(tower);
                 return;
             } else {
+                this.markTowerChanged(this.selectedTower);
+                this.markTowerChanged(tower);
                 this.selectedTower = tower;
                 return;
             }
         }
 
         // Place new tower
-        Tower tower = this.constructNewTower(this.selectedTowerType, cell);
+        Tower tower = constructNewTower(this.selectedTowerType, cell);
 
         if (this.budgetRemaining < tower.getCostToBuild()) {
-            JOptionPane.showMessageDialog(null, "Not enough budget to build selected tower!");
+            this.listener.invalidAction("Not enough budget to build selected tower!");
             return;
         }
         this.budgetRemaining -= tower.getCostToBuild();
         this.towers.add(tower);
+        this.markTowerChanged(this.selectedTower);
+        this.markTowerChanged(tower);
         this.selectedTower = tower;
     }
 
@@ -115,22 +403,33 @@ public class GameState {
      * Upgrades the currently selected tower if the budget allows.
      */
     public void upgradeSelectedTower() {
+        if (this.inputListener != null) {
+            this.inputListener.towerUpgraded(this);
+        }
         if (this.selectedTower == null) {
-            JOptionPane.showMessageDialog(null, "No tower selected for upgrade!", "Error", JOptionPane.ERROR_MESSAGE);
+            this.listener.invalidAction("No tower selected for upgrade!");
             return;
         }
 
         int upgradeCost = this.selectedTower.getCostToUpgrade();
         if (this.budgetRemaining < upgradeCost) {
-            JOptionPane.showMessageDialog(null, "Not enough budget to upgrade selected tower!", "Error", JOptionPane.ERROR_MESSAGE);
+            this.listener.invalidAction("Not enough budget to upgrade selected tower!");
             return;
         }
 
         this.budgetRemaining -= upgradeCost;
         this.selectedTower.upgrade();
+        this.markTowerChanged(this.selectedTower);
     }
 
-    private Tower constructNewTower(String towerType, Cell cell) {
+    /**
+     * Constructs a tower of the given type, as named in the tower type menu. 
+     * 
+     * @param towerType "Archer", "Missile", or "Cannon"
+     * @param cell the cell to place the tower on
+     * @return the new tower
+     */
+    public static Tower constructNewTower(String towerType, Cell cell) {
         if (towerType.equals("Archer")) {
             return new ArcherTower(cell);
         } else if (towerType.equals("Missile")) {
@@ -156,16 +455,14 @@ public class GameState {
     }
 
     public void endWave() {
+        if (this.inputListener != null) {
+            this.inputListener.waveEnded(this);
+        }
         this.projectiles.clear();
         this.budgetRemaining += BUDGET_WAVE_NUMBER_MULTIPLIER * this.getCurrentWaveNumber() * this.currentLevel.getBudget();
 
         if (this.getCurrentWaveNumber() >= this.currentLevel.getTotalWaves()) {
-            JOptionPane.showMessageDialog(null, "Level Complete! Advancing to next level.");
-            boolean hasNextLevel = this.advanceLevel();
-            if (!hasNextLevel) {
-                JOptionPane.showMessageDialog(null, "Congratulations! You have completed all levels!");
-                System.exit(0);
-            }
+            this.listener.levelCompleted(this);
         }
     }
 
@@ -173,10 +470,14 @@ public class GameState {
      * Creates the next wave of enemies. 
      */
     public void startWave() {
+        if (this.inputListener != null) {
+            this.inputListener.waveStarted(this);
+        }
         if (this.isActiveWave()) {
             return;
         }
 
+        this.ticksThisWave = 0;
         this.loadNewEnemyWave();
     }
 
@@ -184,92 +485,310 @@ public class GameState {
         return this.currentLevel.getWaveNumber();
     }
 
+    public int getTotalWaves() {
+        return this.currentLevel.getTotalWaves();
+    }
+
+    public Level getCurrentLevel() {
+        return this.currentLevel;
+    }
+
+    public int getBudgetRemaining() {
+        return this.budgetRemaining;
+    }
+
+    public int getLivesRemaining() {
+        return this.livesRemaining;
+    }
+
+    ArrayList<Tower> getTowers() {
+        return this.towers;
+    }
+
+    Tower getSelectedTower() {
+        return this.selectedTower;
+    }
+
+    EnemyStore getEnemies() {
+        return this.enemies;
+    }
+
+    ProjectilePool getProjectiles() {
+        return this.projectiles;
+    }
+
+    /**
+     * Returns the number of enemies destroyed by projectiles so far.
+     * 
+     * @return the number of enemies killed
+     */
+    public int getEnemiesKilled() {
+        return this.enemiesKilled;
+    }
+
+    /**
+     * Returns the number of enemies that reached the end of their path so far.
+     * 
+     * @return the number of enemies leaked (one life lost each)
+     */
+    public int getEnemiesLeaked() {
+        return this.enemiesLeaked;
+    }
+
+    /**
+     * Returns the number of ticks since the current (or most recent) wave started.
+     * 
+     * @return the number of ticks in this wave
+     */
+    public int getTicksThisWave() {
+        return this.ticksThisWave;
+    }
+
+    /**
+     * Returns the number of ticks since the game started, across every wave and level. 
+     * 
+     * @return the game tick
+     */
+    public long getTick() {
+        return this.tick;
+    }
+
+    public boolean isGameOver() {
+        return this.livesRemaining <= 0;
+    }
+
     private void loadNewEnemyWave() {
-        ArrayList<Enemy> wave = this.currentLevel.getNextWave();
+        List<EnemyTemplate> wave = this.currentLevel.getNextWave();
+        long waveId = ((long) this.currentLevel.getLevelNumber() << 32) | (this.getCurrentWaveNumber() & 0xFFFFFFFFL);
+        SplittableRandom random = new SplittableRandom(this.randomSeed ^ (waveId * WAVE_SEED_MULTIPLIER));
         // Apply staggered spawn delays so enemies begin moving at different ticks
         for (int i = 0; i < wave.size(); i++) {
-            Enemy e = wave.get(i);
-            e.setSpawnDelayTicks(i * ENEMY_SPAWN_DELAY_TICKS);
+            int jitterX = EnemyType.drawJitter(random);
+            int jitterY = EnemyType.drawJitter(random);
+            this.enemies.spawn(wave.get(i), i * ENEMY_SPAWN_DELAY_TICKS, jitterX, jitterY);
         }
-        this.enemies.addAll(wave);
     }
 
     public void updateState() {
-        for (Enemy enemy : this.enemies) {
-            boolean didNotReachEnd = enemy.advance(this.currentLevel);
-            if (!didNotReachEnd) {
-                this.livesRemaining--;
-                if (this.livesRemaining <= 0) {
-                    JOptionPane.showMessageDialog(null, "Game Over! You have run out of lives.");
-                    System.exit(0);
-                }
+        this.tick++;
+        this.ticksThisWave++;
+        int numReachedEnd = this.parallelTick != null ? this.parallelTick.advanceEnemies(this.enemies) : this.enemies.advanceAll();
+        for (int i = 0; i < numReachedEnd; i++) {
+            this.enemiesLeaked++;
+            this.livesRemaining--;
+            if (this.livesRemaining == 0) {
+                this.listener.gameOver(this);
             }
         }
-        this.projectiles.forEach(Projectile::fly);
+        if (this.parallelTick != null) {
+            this.parallelTick.flyProjectiles(this.projectiles);
+            this.parallelTick.updateTowers(this.towers, this.projectiles);
+        } else {
+            this.projectiles.flyAll();
+            for (Tower tower : this.towers) {
+                tower.updateState(this.projectiles);
+            }
+        }
+
+        this.handleCollisions();
+
+        if (this.inputListener != null) {
+            this.inputListener.ticked(this);
+        }
+    }
+
+    /**
+     * Restarts the current level from its first wave with a fresh budget and lives, 
+     * removing every tower, enemy, and projectile. 
+     * The parsed level and the entity storage are kept, so replaying a level 
+     * neither re-parses the level file nor reallocates the pools. 
+     */
+    public void restartLevel() {
+        this.markEverythingChanged();
+        this.currentLevel.restart();
+        this.towers.clear();
+        this.enemies.clear();
+        this.projectiles.clear();
+        this.selectedTower = null;
+        this.budgetRemaining = this.currentLevel.getBudget();
+        this.livesRemaining = DEFAULT_NUM_LIVES;
+        this.enemiesKilled = 0;
+        this.enemiesLeaked = 0;
+        this.ticksThisWave = 0;
+        this.tick = 0;
+    }
+
+    /**
+     * Switches to the given level without completing the current one, 
+     * removing every tower and enemy, e.g. before restoring a snapshot taken on that level. 
+     * 
+     * @param level the level to play
+     */
+    public void loadLevel(Level level) {
+        this.currentLevel = level;
+        this.fitToLevel();
+        this.towers.clear();
+        this.enemies.clear();
+        this.projectiles.clear();
+        this.selectedTower = null;
+        this.prefetchNextLevel();
+    }
 
+    /**
+     * Writes everything that changes during a game to a snapshot: 
+     * the current wave, tick, budget, lives, counters, selection, towers, enemies, and projectiles. 
+     * Usually called through SnapshotArena.save. 
+     * 
+     * @param buffer the snapshot buffer to write to
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.currentLevel.getLevelNumber());
+        buffer.putInt(this.currentLevel.getWaveNumber());
+        buffer.putLong(this.randomSeed);
+        buffer.putInt(this.budgetRemaining);
+        buffer.putInt(this.livesRemaining);
+        buffer.putInt(this.enemiesKilled);
+        buffer.putInt(this.enemiesLeaked);
+        buffer.putInt(this.ticksThisWave);
+        buffer.putLong(this.tick);
+        buffer.put((byte) Arrays.asList(TOWER_TYPES).indexOf(this.selectedTowerType));
+        buffer.putInt(this.towers.indexOf(this.selectedTower));
+
+        buffer.putInt(this.towers.size());
         for (Tower tower : this.towers) {
-            Projectile newProjectile = tower.updateState();
-            if (newProjectile != null) {
-                this.projectiles.add(newProjectile);
+            buffer.put((byte) Arrays.asList(TOWER_TYPES).indexOf(tower.getTypeName()));
+            buffer.putInt(tower.getCell().getRow());
+            buffer.putInt(tower.getCell().getColumn());
+            tower.writeTo(buffer);
+        }
+
+        this.enemies.writeTo(buffer);
+        this.projectiles.writeTo(buffer);
+    }
+
+    /**
+     * Restores everything written by writeTo. 
+     * Towers that are still in place are updated rather than rebuilt. 
+     * Usually called through SnapshotArena.restore. 
+     * 
+     * @param buffer the snapshot buffer to read from
+     */
+    public void readFrom(ByteBuffer buffer) {
+        int levelNumber = buffer.getInt();
+        if (levelNumber != this.currentLevel.getLevelNumber()) {
+            throw new IllegalArgumentException("Cannot restore a snapshot of level " + levelNumber 
+                    + " while playing level " + this.currentLevel.getLevelNumber());
+        }
+        this.markEverythingChanged();
+        this.currentLevel.setWaveNumber(buffer.getInt());
+        this.randomSeed = buffer.getLong();
+        this.budgetRemaining = buffer.getInt();
+        this.livesRemaining = buffer.getInt();
+        this.enemiesKilled = buffer.getInt();
+        this.enemiesLeaked = buffer.getInt();
+        this.ticksThisWave = buffer.getInt();
+        this.tick = buffer.getLong();
+        int selectedTowerTypeIndex = buffer.get();
+        this.selectedTowerType = selectedTowerTypeIndex < 0 ? null : TOWER_TYPES[selectedTowerTypeIndex];
+        int selectedTowerIndex = buffer.getInt();
+
+        int numTowers = buffer.getInt();
+        for (int i = 0; i < numTowers; i++) {
+            String towerType = TOWER_TYPES[buffer.get()];
+            int row = buffer.getInt();
+            int col = buffer.getInt();
+            Tower tower = i < this.towers.size() ? this.towers.get(i) : null;
+            if (tower == null || !tower.getTypeName().equals(towerType) 
+                    || tower.getCell().getRow() != row || tower.getCell().getColumn() != col) {
+                tower = constructNewTower(towerType, new Cell(row, col));
+                if (i < this.towers.size()) {
+                    this.towers.set(i, tower);
+                } else {
+                    this.towers.add(tower);
+                }
             }
+            tower.readFrom(buffer);
         }
+        while (this.towers.size() > numTowers) {
+            this.towers.remove(this.towers.size() - 1);
+        }
+        this.selectedTower = selectedTowerIndex < 0 ? null : this.towers.get(selectedTowerIndex);
 
-        this.handleCollisions();
+        // Enemies only store path indices, so the level's paths must be in place first
+        for (int pathIndex = 0; pathIndex < Level.MAX_PATHS; pathIndex++) {
+            this.enemies.setPath(pathIndex, this.currentLevel.getPath(pathIndex));
+        }
+        this.enemies.readFrom(buffer);
+        this.projectiles.readFrom(buffer);
     }
 
     public boolean advanceLevel() {
+        if (this.inputListener != null) {
+            this.inputListener.levelAdvanced(this);
+        }
         this.currentLevel = this.currentLevel.getNextLevel();
+        this.fitToLevel();
         this.towers.clear();
+        this.enemies.clear();
+        this.prefetchNextLevel();
         return currentLevel != null;
     }
 
+    /**
+     * Draws the whole game as it is now, on the calling thread. 
+     * A game running on another thread is drawn from its render snapshots instead. 
+     * 
+     * @param g2d the Graphics2D object to draw on
+     */
     public void drawAll(Graphics2D g2d) {
 //        int fontSize = 24;
 //        Font textFont = new Font("Comic Sans MS", Font.BOLD, fontSize);
 
-        if (this.currentLevel != null) {
-            this.currentLevel.drawOn(g2d);
-        }
-        
-        for (Tower tower : this.towers) {
-            tower.drawOn(g2d);
-        }
-
-        if (selectedTower != null) {
-            selectedTower.drawHighlightedCell(g2d);
-        }
+        RenderSnapshot snapshot = this.captureDrawingSnapshot();
+        snapshot.drawWorld(g2d, 1.0);
+        snapshot.drawHUD(g2d);
+    }
 
-        g2d.setColor(Color.PINK);
-        for (Enemy enemy : this.enemies) {
-            enemy.drawOn(g2d);
-        }
-        for (Projectile projectile : this.projectiles) {
-            projectile.drawOn(g2d);
-        }
+    /**
+     * Draws the level, towers, enemies, and projectiles, in level coordinates. 
+     * 
+     * @param g2d the Graphics2D object to draw on, translated to the part of the level in view
+     */
+    public void drawWorld(Graphics2D g2d) {
+        this.drawWorld(g2d, 1.0);
+    }
 
-        this.drawHUD(g2d);
+    /**
+     * Draws the level, towers, enemies, and projectiles, in level coordinates, 
+     * with moving entities part of the way from their positions before the most recent tick to their current ones. 
+     * 
+     * @param g2d the Graphics2D object to draw on, translated to the part of the level in view
+     * @param alpha how far the next tick is along, from 0 (draw the previous positions) to 1 (the current ones)
+     */
+    public void drawWorld(Graphics2D g2d, double alpha) {
+        this.captureDrawingSnapshot().drawWorld(g2d, alpha);
     }
 
     public void drawHUD(Graphics2D g2d) {
-        // Draw remaining budget in top right corner
-        String budgetText = "Budget: $" + this.budgetRemaining;
-        g2d.setColor(Color.BLACK);
-        g2d.drawString(budgetText, TowerDefenseMain.GAME_WINDOW_SIZE.width - Cell.SQUARE_SIZE * 3,  Cell.SQUARE_SIZE / 2);
-
-        // Draw remaining lives in top left corner
-        this.drawRemainingLives(g2d);
+        this.captureDrawingSnapshot().drawHUD(g2d);
     }
 
     /**
-     * Draws the remaining lives in the top left corner.
-     * @param g2d
+     * Copies the current state into the snapshot the draw methods of this class draw from, 
+     * without taking the changes meant for the next render snapshot. 
      */
-    private void drawRemainingLives(Graphics2D g2d) {
-        g2d.setColor(Color.RED);
-        g2d.drawString("Lives: " + this.livesRemaining, Cell.SQUARE_SIZE / 4, Cell.SQUARE_SIZE / 2);
+    private RenderSnapshot captureDrawingSnapshot() {
+        if (this.drawingSnapshot == null) {
+            this.drawingSnapshot = new RenderSnapshot();
+        }
+        this.drawingSnapshot.capture(this, null, true, true);
+        return this.drawingSnapshot;
     }
 
     public void setSelectedTowerType(String towerType) {
+        if (this.inputListener != null) {
+            this.inputListener.towerTypeSelected(this, towerType);
+        }
         this.selectedTowerType = towerType;
     }
 }
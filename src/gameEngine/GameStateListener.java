@@ -0,0 +1,33 @@
+package gameEngine;
+
+/**
+ * Receives the notifications that the game state cannot handle on its own,
+ * such as rejected player actions, a completed level, or a lost game.
+ *
+ * The Swing game shows dialogs in response,
+ * while the headless simulation simply records the outcome.
+ */
+public interface GameStateListener {
+
+    /**
+     * Called when a player action (placing, rotating, or upgrading a tower) is rejected.
+     *
+     * @param message a human-readable reason for the rejection
+     */
+    void invalidAction(String message);
+
+    /**
+     * Called when the last wave of the current level has ended.
+     * The listener decides whether (and how) to advance to the next level.
+     *
+     * @param gameState the game state whose level was completed
+     */
+    void levelCompleted(GameState gameState);
+
+    /**
+     * Called when the player has run out of lives.
+     *
+     * @param gameState the game state that was lost
+     */
+    void gameOver(GameState gameState);
+}
@@ -1,15 +1,30 @@
 package gameEngine;
 
 import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Scanner;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import gameObjects.Enemy;
-import gameObjects.enemies.Grunt;
-import gameObjects.enemies.Heavy;
+import javax.swing.UIManager;
 
+import gameObjects.EnemyTemplate;
+import gameObjects.EnemyType;
+
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * Represents a level in the game. 
@@ -18,258 +33,462 @@ import java.io.File;
  * and a series of waves of enemies to face. 
  */
 public class Level {
-    public static final int NUM_ROWS = 8;
-    public static final int NUM_COLS = 10;
+    /**
+     * The number of rows and columns of cells that fit in the game window. 
+     * Levels can be larger, up to TerrainMap.MAX_SIZE cells on each side, and scroll. 
+     */
+    public static final int SCREEN_ROWS = 8;
+    public static final int SCREEN_COLS = 10;
+    /**
+     * Paths are numbered by the digit on their start cell, so there are at most ten. 
+     */
+    public static final int MAX_PATHS = 10;
     
     private static final int DEFAULT_BUDGET = 0;
 
+    /**
+     * Loads prefetched levels one at a time, on a daemon thread so it never keeps the game running. 
+     */
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Level prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final String METADATA_START = "## START METADATA ##";
+    private static final String TERRAIN_START = "## START TERRAIN ##";
+    private static final String ENEMIES_START = "## START ENEMIES ##";
+
     private static final Color GRASS_COLOR = new Color(0, 228, 71);
     private static final Color PATH_COLOR = new Color(45, 47, 87);
     private static final Color PATH_START_COLOR = new Color(255, 236, 39);
     private static final Color SAND_COLOR = new Color(248, 121, 23, 180);
+
+    /**
+     * The terrain is drawn once into cached tiles of TILE_CELLS by TILE_CELLS cells, 
+     * so a level of up to that size is a single image. 
+     * At most MAX_CACHED_TILES tiles are kept, the least recently drawn are dropped first. 
+     */
+    private static final int TILE_CELLS = 16;
+    private static final int MAX_CACHED_TILES = 16;
     
+    private String filename;
     private int levelNumber;
     private int budget;
     private int currentWaveIndex;
-    private int maxWaveIndex;
-    private char[][] terrain;
+    private TerrainMap terrain;
     /**
-     * Maps a wave and path string representation to a list of enemies. 
-     * 
-     * The string representation is of the form "Wave[WaveIndex]_Path[PathIndex]". 
-     * 
+     * The enemies of each wave, indexed by wave index - 1. 
      * 
+     * Each wave holds lightweight templates, in order of path index and then file order, 
+     * which become enemies in the game's EnemyStore only when the wave starts, 
+     * so the level can be played again and again without re-parsing it. 
      */
-    private HashMap<String, ArrayList<Enemy>> waveAndPathToEnemies;
+    private ArrayList<ArrayList<EnemyTemplate>> waves;
     /**
      * Maps a path index to the start cell of that path. 
      * 
      * 
      */
     private HashMap<Integer, Cell> pathToStartCell;
+    /**
+     * Maps a path index to the cells of that path, in order from its start cell to its last cell. 
+     * 
+     * Computed once at load time, so enemies only need to track their position along the path. 
+     */
+    private HashMap<Integer, Cell[]> pathToCells;
+    /**
+     * The pack this level was loaded from, which also holds the levels after it, 
+     * or null if the level was loaded from its own file. 
+     */
+    private LevelPack pack;
+    /**
+     * The next level, if prefetchNextLevel has started loading it. 
+     */
+    private CompletableFuture<Level> nextLevel;
+    /**
+     * The rendered terrain tiles, indexed by tileRow * (number of tile columns) + tileCol, 
+     * in the format of the screen they were rendered for. 
+     */
+    private LinkedHashMap<Integer, BufferedImage> terrainTiles;
+    private GraphicsConfiguration terrainTilesConfiguration;
+    private AffineTransform terrainTilesTransform;
 
     /**
      * Constructs a new Level object from a file. 
      * 
      * @param filename
+     * @throws LevelFormatException if the file is malformed
+     * @throws UncheckedIOException if the file cannot be read
      */
     public Level(String filename) {
+        this.filename = filename;
         this.budget = DEFAULT_BUDGET;
         this.currentWaveIndex = 0;
-        this.maxWaveIndex = 0;
-        this.terrain = new char[NUM_ROWS][NUM_COLS];
-        this.waveAndPathToEnemies = new HashMap<String, ArrayList<Enemy>>();
+        this.terrain = null;
+        this.waves = new ArrayList<ArrayList<EnemyTemplate>>();
         this.pathToStartCell = null;
+        this.pathToCells = null;
+        this.pack = null;
+        this.terrainTiles = createTileCache();
 
-        this.loadMetadata(filename);
-        this.loadTerrain(filename);
-        this.findPathToStartCells();
-        this.loadEnemies(filename);
+        this.load(filename);
+    }
+
+    /**
+     * Constructs a level from data that has already been parsed, e.g. from a level pack. 
+     * Enemies are added afterwards with addEnemy. 
+     * 
+     * @param filename the file the level was originally loaded from
+     * @param levelNumber the level number
+     * @param budget the starting budget
+     * @param terrain the terrain
+     * @param pack the pack holding this level and the levels after it, or null
+     */
+    Level(String filename, int levelNumber, int budget, TerrainMap terrain, LevelPack pack) {
+        this.filename = filename;
+        this.levelNumber = levelNumber;
+        this.budget = budget;
+        this.currentWaveIndex = 0;
+        this.terrain = terrain;
+        this.waves = new ArrayList<ArrayList<EnemyTemplate>>();
+        this.pack = pack;
+        this.terrainTiles = createTileCache();
 
+        this.findPathToStartCells();
+        this.findPathCells();
     }
 
     public int getBudget() {
         return budget;
     }
 
-
     /**
-     * Loads the metadata from the given file. 
+     * Returns the file the level was loaded from. 
      * 
-     * The metadata is expected to be in the following format: 
+     * @return the level file name
+     */
+    public String getFilename() {
+        return this.filename;
+    }
+
+    /**
+     * Returns the file name of the level with the given number, e.g. "levels/level02.csv". 
      * 
-     * ## START METADATA ##
-     * LevelNumber,XXX
-     * Budget,XXX
-     * ## END METADATA ##
+     * @param levelNumber the level number (1, 2, 3, ...)
+     * @return the level file name
+     */
+    public static String getFilename(int levelNumber) {
+        return String.format("levels/level%02d.csv", levelNumber);
+    }
+
+    public int getLevelNumber() {
+        return levelNumber;
+    }
+
+    /**
+     * Returns the pack this level was loaded from, which also holds the levels after it. 
      * 
-     * @param filename
+     * @return the level pack, or null if the level was loaded from its own file
      */
-    private void loadMetadata(String filename) {
-        File file = new File(filename);
-        Scanner in;
-        
-        try {
-            in = new Scanner(file);
-            while (in.hasNextLine()) {
-                String line = in.nextLine();
-                if (line.startsWith("## START METADATA ##")) {
-                    break;
-                }
-            }
-            while (in.hasNextLine()) {
-                String line = in.nextLine();
-                if (line.startsWith("## END METADATA ##")) {
-                    break;
-                }
-                String[] tokens = line.split(",");
-                if (tokens.length != 2) {
-                    continue;
-                }
-                if (tokens[0].equals("LevelNumber")) {
-                    this.levelNumber = Integer.parseInt(tokens[1]);
-                } else if (tokens[0].equals("Budget")) {
-                    this.budget = Integer.parseInt(tokens[1]);
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.exit(1);
-        }
+    public LevelPack getPack() {
+        return this.pack;
     }
-    
+
+
     /**
-     * Loads the terrain from the given file. 
+     * Loads the level from the given file in a single pass. 
      * 
-     * The terrain is expected to be in the following format: 
+     * The file is expected to hold three sections, in this order: 
      * 
+     * ## START METADATA ##
+     * LevelNumber,XXX
+     * Budget,XXX
+     * ## END METADATA ##
      * ## START TERRAIN ##
-     * XXXXXXXXXXXXXXXX
-     * XXXXXXXXXXXXXXXX
-     * XXXXXXXXXXXXXXXX
+     * XXXXXXXXXX
+     * XXXXXXXXXX
      * ## END TERRAIN ##
+     * ## START ENEMIES ##
+     * EnemyType,Level,WaveIndex,PathIndex
+     * EnemyType,Level,WaveIndex,PathIndex
+     * ## END ENEMIES ##
      * 
-     * The grid should be 8 rows by 10 columns. 
+     * Every terrain row should have the same number of cells; 
+     * the grid can have up to TerrainMap.MAX_SIZE rows and columns, and usually fills the window (8 rows by 10 columns). 
      * Allowed characters include 
      * '.' -> empty, grass, drawn as green square
      * 'P' -> path, drawn as gray square
      * '0-9' -> path starting location, drawn as white square with number
      * 'x' -> sand, blocked for tower placement, drawn as beige square
      * 
+     * Lines outside the sections, blank lines, and the enemy header line are ignored. 
+     * 
      * @param filename
+     * @throws LevelFormatException if the file is malformed
+     * @throws UncheckedIOException if the file cannot be read
      */
-    private void loadTerrain(String filename) {
-        File file = new File(filename);
-        Scanner in;
-        int i = 0;
-        try {
-            in = new Scanner(file);
-            while (in.hasNextLine()) {
-                String line = in.nextLine();
-                if (line.startsWith("## START TERRAIN ##")) {
-                    break;
+    private void load(String filename) {
+        String section = null;
+        boolean hasLevelNumber = false;
+        boolean hasTerrain = false;
+        int terrainRows = 0;
+        int lineNumber = 0;
+
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(filename))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+
+                if (line.startsWith("## START ")) {
+                    if (section != null) {
+                        throw new LevelFormatException(filename, lineNumber, "Section " + line + " starts inside section " + section);
+                    }
+                    section = line;
+                    if (section.equals(ENEMIES_START) && !hasTerrain) {
+                        throw new LevelFormatException(filename, lineNumber, "The enemies must come after the terrain");
+                    }
+                    continue;
                 }
-            }
-            while (in.hasNextLine()) {
-                String line = in.nextLine();
-                if (line.startsWith("## END TERRAIN ##")) {
-                    break;
+                if (line.startsWith("## END ")) {
+                    if (section == null || !line.equals(section.replace("## START ", "## END "))) {
+                        throw new LevelFormatException(filename, lineNumber, "Section end " + line + " does not match " + section);
+                    }
+                    if (section.equals(TERRAIN_START)) {
+                        if (terrainRows == 0) {
+                            throw new LevelFormatException(filename, lineNumber, "The terrain has no rows");
+                        }
+                        // Enemies look up their paths as they are read
+                        this.findPathToStartCells();
+                        this.findPathCells();
+                        hasTerrain = true;
+                    }
+                    section = null;
+                    continue;
+                }
+                if (section == null || line.isEmpty()) {
+                    continue;
+                }
+
+                if (section.equals(METADATA_START)) {
+                    hasLevelNumber |= this.parseMetadataLine(line, filename, lineNumber);
+                } else if (section.equals(TERRAIN_START)) {
+                    if (hasTerrain) {
+                        throw new LevelFormatException(filename, lineNumber, "The level has more than one terrain section");
+                    }
+                    this.parseTerrainLine(line, terrainRows, filename, lineNumber);
+                    terrainRows++;
+                } else if (section.equals(ENEMIES_START)) {
+                    this.parseEnemyLine(line, filename, lineNumber);
                 }
-                this.terrain[i++] = line.toCharArray();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.exit(1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading level file " + filename, e);
+        }
+
+        if (section != null) {
+            throw new LevelFormatException(filename, lineNumber, "Section " + section + " is never ended");
+        }
+        if (!hasLevelNumber) {
+            throw new LevelFormatException(filename, 0, "The metadata has no LevelNumber");
+        }
+        if (!hasTerrain) {
+            throw new LevelFormatException(filename, 0, "The level has no terrain section");
         }
     }
 
     /**
-     * Loads the enemies from the given file. 
+     * Reads one line of metadata, e.g. "Budget,5". 
      * 
-     * The enemies are expected to be in the following format: 
-     * 
-     * ## START ENEMIES ##
-     * EnemyType,Level,WaveIndex,PathIndex
-     * EnemyType,Level,WaveIndex,PathIndex
-     * ## END ENEMIES ##
-     * 
-     * @param filename
+     * @return true if the line set the level number
      */
-    private void loadEnemies(String filename) {
-        this.maxWaveIndex = 0;
-
-        if (this.pathToStartCell == null) {
-            this.findPathToStartCells();
+    private boolean parseMetadataLine(String line, String filename, int lineNumber) {
+        String[] tokens = line.split(",", -1);
+        if (tokens.length != 2) {
+            throw new LevelFormatException(filename, lineNumber, "Expected Key,Value but found \"" + line + "\"");
+        }
+        if (tokens[0].equals("LevelNumber")) {
+            this.levelNumber = parseInt(tokens[1], "level number", filename, lineNumber);
+            return true;
+        } else if (tokens[0].equals("Budget")) {
+            this.budget = parseInt(tokens[1], "budget", filename, lineNumber);
         }
-        
-        File file = new File(filename);
-        Scanner in;
+        return false;
+    }
 
-        try {
-            in = new Scanner(file);
-            while (in.hasNextLine()) {
-                String line = in.nextLine();
-                if (line.startsWith("## START ENEMIES ##")) {
-                    break;
-                }
+    /**
+     * Reads one row of terrain, e.g. "1PPP......". 
+     */
+    private void parseTerrainLine(String line, int row, String filename, int lineNumber) {
+        if (this.terrain == null) {
+            // The first row sets the width of the map
+            if (line.length() > TerrainMap.MAX_SIZE) {
+                throw new LevelFormatException(filename, lineNumber,
+                        "Terrain row has " + line.length() + " cells, at most " + TerrainMap.MAX_SIZE + " are allowed");
             }
-            while (in.hasNextLine()) {
-                String line = in.nextLine();
-                if (line.startsWith("## END ENEMIES ##")) {
-                    break;
-                }
-                String[] tokens = line.split(",");
-                if (tokens.length != 4) {
-                    continue;
-                }
+            this.terrain = new TerrainMap(line.length());
+        }
+        if (row >= TerrainMap.MAX_SIZE) {
+            throw new LevelFormatException(filename, lineNumber, "The terrain has more than " + TerrainMap.MAX_SIZE + " rows");
+        }
+        if (line.length() != this.terrain.getColumns()) {
+            throw new LevelFormatException(filename, lineNumber,
+                    "Terrain row has " + line.length() + " cells, expected " + this.terrain.getColumns());
+        }
+        this.terrain.addRow();
+        for (int col = 0; col < line.length(); col++) {
+            char cellValue = line.charAt(col);
+            if (!TerrainMap.isValidTerrain(cellValue)) {
+                throw new LevelFormatException(filename, lineNumber,
+                        "Unknown terrain '" + cellValue + "' in column " + (col + 1));
+            }
+            this.terrain.set(row, col, cellValue);
+        }
+    }
 
-                String enemyType = tokens[0];
-                if (enemyType.equals("Enemy Type")) {
-                    continue; // Skip header line
-                }
+    /**
+     * Reads one enemy, e.g. "Grunt,1,2,1". 
+     */
+    private void parseEnemyLine(String line, String filename, int lineNumber) {
+        String[] tokens = line.split(",", -1);
+        if (tokens.length != 4) {
+            throw new LevelFormatException(filename, lineNumber,
+                    "Expected EnemyType,Level,WaveIndex,PathIndex but found \"" + line + "\"");
+        }
+        if (tokens[0].equals("Enemy Type")) {
+            return; // Skip header line
+        }
 
-                int level = Integer.parseInt(tokens[1]);
-                int waveIndex = Integer.parseInt(tokens[2]);
-                int pathIndex = Integer.parseInt(tokens[3]);
+        EnemyType enemyType;
+        try {
+            enemyType = EnemyType.fromName(tokens[0]);
+        } catch (IllegalArgumentException e) {
+            throw new LevelFormatException(filename, lineNumber, "Unknown enemy type \"" + tokens[0] + "\"");
+        }
+        int level = parseInt(tokens[1], "enemy level", filename, lineNumber);
+        int waveIndex = parseInt(tokens[2], "wave index", filename, lineNumber);
+        int pathIndex = parseInt(tokens[3], "path index", filename, lineNumber);
+        if (level < 1) {
+            throw new LevelFormatException(filename, lineNumber, "Enemy level must be at least 1, found " + level);
+        }
+        if (waveIndex < 1) {
+            throw new LevelFormatException(filename, lineNumber, "Wave index must be at least 1, found " + waveIndex);
+        }
+        if (!this.pathToCells.containsKey(pathIndex)) {
+            throw new LevelFormatException(filename, lineNumber, "The terrain has no path " + pathIndex);
+        }
 
-                if (waveIndex > this.maxWaveIndex) {
-                    this.maxWaveIndex = waveIndex;
-                }
+        this.addEnemy(enemyType, level, waveIndex, pathIndex);
+    }
 
-                // Create a new empty list of enemies for this wave and path if it doesn't already exist
-                String key = "Wave" + waveIndex + "_Path" + pathIndex;
-                if (!this.waveAndPathToEnemies.containsKey(key)) {
-                    this.waveAndPathToEnemies.put(key, new ArrayList<Enemy>());
-                }
-                this.waveAndPathToEnemies.get(key).add(this.createEnemy(enemyType, level, pathIndex));
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            System.exit(1);
+    private static int parseInt(String token, String description, String filename, int lineNumber) {
+        try {
+            return Integer.parseInt(token.strip());
+        } catch (NumberFormatException e) {
+            throw new LevelFormatException(filename, lineNumber, "Expected a number for the " + description + " but found \"" + token + "\"");
         }
+    }
 
+    /**
+     * Adds an enemy to the given wave. 
+     * 
+     * @param enemyType the type of the enemy
+     * @param level the level of the enemy
+     * @param waveIndex the wave the enemy attacks in (1, 2, 3, ...)
+     * @param pathIndex the path the enemy walks along
+     */
+    void addEnemy(EnemyType enemyType, int level, int waveIndex, int pathIndex) {
+        // Create empty waves up to this one if they don't already exist
+        while (this.waves.size() < waveIndex) {
+            this.waves.add(new ArrayList<EnemyTemplate>());
+        }
+        ArrayList<EnemyTemplate> wave = this.waves.get(waveIndex - 1);
 
+        // Keep the wave ordered by path; files usually list each path in turn, so this is an append
+        int position = wave.size();
+        while (position > 0 && wave.get(position - 1).getPathIndex() > pathIndex) {
+            position--;
+        }
+        wave.add(position, this.createEnemy(enemyType, level, pathIndex));
     }
 
-    private Enemy createEnemy(String enemyType, int level, int pathIndex) {
-        Cell startCell = this.pathToStartCell.get(pathIndex);
-        if (enemyType.equals("Grunt")) {
-            return new Grunt(startCell, level);
-        } else if (enemyType.equals("Heavy")) {
-            return new Heavy(startCell, level);
-        } else {
-            throw new IllegalArgumentException("Unsupported enemy type: " + enemyType);
-        }
+    private EnemyTemplate createEnemy(EnemyType enemyType, int level, int pathIndex) {
+        // Jitter is drawn when the enemy spawns, from the random stream of the game being played
+        Cell[] path = this.pathToCells.get(pathIndex);
+        return new EnemyTemplate(enemyType, level, pathIndex, path);
     }
 
     /**
      * Returns the next wave of enemies to face, 
-     * as a map of path indices to lists of enemies. 
+     * as a list of templates for EnemyStore.spawn. 
      * 
-     * @return
+     * @return the templates of the enemies of the wave, empty if there are no more waves
      */
-    public ArrayList<Enemy> getNextWave() {
+    public List<EnemyTemplate> getNextWave() {
         this.currentWaveIndex++;
+        return this.getWave(this.currentWaveIndex);
+    }
 
-        ArrayList<Enemy> wave = new ArrayList<Enemy>();
-
-        String keyStart = "Wave" + this.currentWaveIndex + "_";
-
-        for (String key : this.waveAndPathToEnemies.keySet()) {
-            if (key.startsWith(keyStart)) {
-                wave.addAll(this.waveAndPathToEnemies.get(key));
-            }
+    /**
+     * Returns the enemies of the given wave, without changing the current wave. 
+     * 
+     * @param waveIndex the wave (1, 2, 3, ...)
+     * @return the templates of the enemies of the wave, empty if there is no such wave
+     */
+    List<EnemyTemplate> getWave(int waveIndex) {
+        if (waveIndex < 1 || waveIndex > this.waves.size()) {
+            return Collections.emptyList();
         }
-
-        return wave;
+        return Collections.unmodifiableList(this.waves.get(waveIndex - 1));
     }
 
     public int getWaveNumber() {
         return this.currentWaveIndex;
     }
 
+    /**
+     * Rewinds the level to before its first wave, so it can be played again without re-parsing the file. 
+     */
+    public void restart() {
+        this.currentWaveIndex = 0;
+    }
+
+    /**
+     * Rewinds or fast-forwards the level so the given wave is the current one, 
+     * e.g. when restoring a snapshot. 
+     * 
+     * @param waveNumber the wave number (0 before the first wave, then 1, 2, 3, ...)
+     */
+    public void setWaveNumber(int waveNumber) {
+        this.currentWaveIndex = waveNumber;
+    }
+
     public int getTotalWaves() {
-        return this.maxWaveIndex;
+        return this.waves.size();
+    }
+
+    /**
+     * Returns the terrain character of the given cell, e.g. '.' for grass. 
+     * 
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the terrain character
+     */
+    char getTerrain(int row, int col) {
+        return this.terrain.get(row, col);
+    }
+
+    TerrainMap getTerrainMap() {
+        return this.terrain;
+    }
+
+    public int getRows() {
+        return this.terrain.getRows();
+    }
+
+    public int getColumns() {
+        return this.terrain.getColumns();
     }
 
     /**
@@ -281,7 +500,12 @@ public class Level {
      * @return
      */
     public boolean isValidTowerLocation(Cell cell) {
-        return this.terrain[cell.getRow()][cell.getColumn()] == '.';
+        int r = cell.getRow();
+        int c = cell.getColumn();
+        if (r < 0 || r >= this.terrain.getRows() || c < 0 || c >= this.terrain.getColumns()) {
+            return false;
+        }
+        return this.terrain.get(r, c) == '.';
     }
 
     /**
@@ -290,43 +514,170 @@ public class Level {
     private void findPathToStartCells() {
         this.pathToStartCell = new HashMap<>();
 
-        for (int row = 0; row < NUM_ROWS; row++) {
-            for (int col = 0; col < NUM_COLS; col++) {
-                if (this.terrain[row][col] >= '0' && this.terrain[row][col] <= '9') {
-                    this.pathToStartCell.put(this.terrain[row][col] - '0', new Cell(row, col));
+        // The terrain map keeps track of start cells, so large maps are not scanned
+        for (int pathIndex = 0; pathIndex < MAX_PATHS; pathIndex++) {
+            Cell start = this.terrain.getPathStart(pathIndex);
+            if (start != null) {
+                this.pathToStartCell.put(pathIndex, start);
+            }
+        }
+    }
+
+    /**
+     * Traces each path from its start cell and stores its cells in order. 
+     * 
+     * From each cell, the next cell is the first path cell among the neighbors 
+     * up, right, down, and left, skipping the cell just visited. 
+     * The path ends at the first cell with no such neighbor. 
+     * A path that loops back on itself is cut off after visiting every cell of the grid once. 
+     */
+    private void findPathCells() {
+        this.pathToCells = new HashMap<>();
+
+        int[] rowOffsets = new int[] { -1, 0, 1, 0 };
+        int[] colOffsets = new int[] { 0, 1, 0, -1 };
+
+        for (int pathIndex : this.pathToStartCell.keySet()) {
+            ArrayList<Cell> cells = new ArrayList<Cell>();
+            Cell previous = null;
+            Cell current = this.pathToStartCell.get(pathIndex);
+            cells.add(current);
+
+            while (cells.size() < this.terrain.getRows() * this.terrain.getColumns()) {
+                Cell next = null;
+                for (int i = 0; i < rowOffsets.length; i++) {
+                    Cell candidate = new Cell(current.getRow() + rowOffsets[i], current.getColumn() + colOffsets[i]);
+                    if (previous != null && candidate.equals(previous)) {
+                        continue;
+                    }
+                    if (this.isPathCell(candidate)) {
+                        next = candidate;
+                        break;
+                    }
+                }
+                if (next == null) {
+                    break;
                 }
+                previous = current;
+                current = next;
+                cells.add(current);
             }
+
+            this.pathToCells.put(pathIndex, cells.toArray(new Cell[0]));
         }
     }
 
+    /**
+     * Returns the cells of the given path, in order from its start cell to its last cell, 
+     * or null if the level has no such path. 
+     * 
+     * @param pathIndex the path index (the digit on its start cell)
+     * @return the cells of the path
+     */
+    public Cell[] getPath(int pathIndex) {
+        return this.pathToCells.get(pathIndex);
+    }
+
     /**
      * Returns true if the given cell is part of a path (including a numeric start cell).
      */
     public boolean isPathCell(Cell cell) {
         int r = cell.getRow();
         int c = cell.getColumn();
-        if (r < 0 || r >= NUM_ROWS || c < 0 || c >= NUM_COLS) {
+        if (r < 0 || r >= this.terrain.getRows() || c < 0 || c >= this.terrain.getColumns()) {
             return false;
         }
-        char v = this.terrain[r][c];
+        char v = this.terrain.get(r, c);
         return v == 'P' || (v >= '0' && v <= '9');
     }
 
     /**
      * Draws the level on the given Graphics2D object.
      * 
-     * The terrain is drawn first, where each cell is drawn according to its value in the terrain array. 
+     * The terrain never changes during a level, so it is rendered once into cached tiles 
+     * in the format of the screen, and each frame only copies the tiles inside the clip bounds. 
+     * The tiles are rendered again when the level is drawn on a different screen or at a different scale, 
+     * e.g. after the window moves to a high-DPI screen. 
+     * 
+     * @param g2d the Graphics2D object to draw on
+     */
+    public void drawOn(Graphics2D g2d) {
+        GraphicsConfiguration configuration = g2d.getDeviceConfiguration();
+        AffineTransform transform = configuration.getDefaultTransform();
+        if (configuration != this.terrainTilesConfiguration || !transform.equals(this.terrainTilesTransform)) {
+            this.terrainTiles.clear();
+            this.terrainTilesConfiguration = configuration;
+            this.terrainTilesTransform = transform;
+        }
+
+        int tileSize = TILE_CELLS * Cell.SQUARE_SIZE;
+        int tileRows = ceilDiv(this.terrain.getRows(), TILE_CELLS);
+        int tileCols = ceilDiv(this.terrain.getColumns(), TILE_CELLS);
+        int firstTileRow = 0;
+        int lastTileRow = tileRows - 1;
+        int firstTileCol = 0;
+        int lastTileCol = tileCols - 1;
+        Rectangle clip = g2d.getClipBounds();
+        if (clip != null) {
+            firstTileRow = Math.max(firstTileRow, Math.floorDiv(clip.y, tileSize));
+            lastTileRow = Math.min(lastTileRow, Math.floorDiv(clip.y + clip.height, tileSize));
+            firstTileCol = Math.max(firstTileCol, Math.floorDiv(clip.x, tileSize));
+            lastTileCol = Math.min(lastTileCol, Math.floorDiv(clip.x + clip.width, tileSize));
+        }
+
+        for (int tileRow = firstTileRow; tileRow <= lastTileRow; tileRow++) {
+            for (int tileCol = firstTileCol; tileCol <= lastTileCol; tileCol++) {
+                int firstRow = tileRow * TILE_CELLS;
+                int firstCol = tileCol * TILE_CELLS;
+                int width = (Math.min(firstCol + TILE_CELLS, this.terrain.getColumns()) - firstCol) * Cell.SQUARE_SIZE;
+                int height = (Math.min(firstRow + TILE_CELLS, this.terrain.getRows()) - firstRow) * Cell.SQUARE_SIZE;
+                BufferedImage tile = this.terrainTiles.get(tileRow * tileCols + tileCol);
+                if (tile == null) {
+                    tile = this.renderTerrainTile(firstRow, firstCol, width, height, g2d.getFont());
+                    this.terrainTiles.put(tileRow * tileCols + tileCol, tile);
+                }
+                g2d.drawImage(tile, firstCol * Cell.SQUARE_SIZE, firstRow * Cell.SQUARE_SIZE, width, height, null);
+            }
+        }
+    }
+
+    /**
+     * Renders the cells of one terrain tile into a new image in the format of the current screen, 
+     * at the scale of the screen so it stays sharp on high-DPI screens. 
+     * The image is opaque, so it is copied without blending: see-through sand is blended once, here, 
+     * over the window background that used to show through it. 
+     */
+    private BufferedImage renderTerrainTile(int firstRow, int firstCol, int width, int height, Font font) {
+        double scaleX = this.terrainTilesTransform.getScaleX();
+        double scaleY = this.terrainTilesTransform.getScaleY();
+        BufferedImage tile = this.terrainTilesConfiguration.createCompatibleImage(
+                (int) Math.ceil(width * scaleX), (int) Math.ceil(height * scaleY), Transparency.OPAQUE);
+        Graphics2D tileGraphics = tile.createGraphics();
+        Color background = UIManager.getColor("Panel.background");
+        tileGraphics.setColor(background == null ? Color.WHITE : background);
+        tileGraphics.fillRect(0, 0, tile.getWidth(), tile.getHeight());
+        tileGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        tileGraphics.setFont(font);
+        tileGraphics.scale(scaleX, scaleY);
+        tileGraphics.translate(-firstCol * Cell.SQUARE_SIZE, -firstRow * Cell.SQUARE_SIZE);
+        this.drawTerrain(tileGraphics, firstRow, firstRow + height / Cell.SQUARE_SIZE - 1,
+                firstCol, firstCol + width / Cell.SQUARE_SIZE - 1);
+        tileGraphics.dispose();
+        return tile;
+    }
+
+    /**
+     * Draws the given range of cells and their grid lines. 
+     * Each cell is drawn according to its value in the terrain map. 
      * '.' -> empty, grass, drawn as green square
      * 'P' -> path, drawn as gray square
      * '0-9' -> path starting location, drawn as white square with number
      * 'x' -> sand, blocked for tower placement, drawn as beige square
-     * 
-     * @param g2d the Graphics2D object to draw on
      */
-    public void drawOn(Graphics2D g2d) {
-        for (int row = 0; row < NUM_ROWS; row++) {
-            for (int col = 0; col < NUM_COLS; col++) {
-                char cellValue = this.terrain[row][col];
+    private void drawTerrain(Graphics2D g2d, int firstRow, int lastRow, int firstCol, int lastCol) {
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                char cellValue = this.terrain.get(row, col);
                 Color color = Color.WHITE;
                 if (cellValue == '.') {
                     color = GRASS_COLOR;
@@ -350,21 +701,74 @@ public class Level {
 
         // Draw thin black grid lines
         g2d.setColor(Color.BLACK);
-        for (int row = 0; row < NUM_ROWS; row++) {
-            g2d.drawLine(0, row * Cell.SQUARE_SIZE, NUM_COLS * Cell.SQUARE_SIZE, row * Cell.SQUARE_SIZE);
+        for (int row = firstRow; row <= lastRow; row++) {
+            g2d.drawLine(firstCol * Cell.SQUARE_SIZE, row * Cell.SQUARE_SIZE, (lastCol + 1) * Cell.SQUARE_SIZE, row * Cell.SQUARE_SIZE);
         }
-        for (int col = 0; col < NUM_COLS; col++) {
-            g2d.drawLine(col * Cell.SQUARE_SIZE, 0, col * Cell.SQUARE_SIZE, NUM_ROWS * Cell.SQUARE_SIZE);
+        for (int col = firstCol; col <= lastCol; col++) {
+            g2d.drawLine(col * Cell.SQUARE_SIZE, firstRow * Cell.SQUARE_SIZE, col * Cell.SQUARE_SIZE, (lastRow + 1) * Cell.SQUARE_SIZE);
+        }
+    }
+
+    /**
+     * Returns an empty tile cache that drops its least recently drawn tile once it holds more than MAX_CACHED_TILES. 
+     */
+    private static LinkedHashMap<Integer, BufferedImage> createTileCache() {
+        return new LinkedHashMap<Integer, BufferedImage>(MAX_CACHED_TILES, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                return this.size() > MAX_CACHED_TILES;
+            }
+        };
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    /**
+     * Starts loading the next level on a background thread, 
+     * so getNextLevel returns it without reading or parsing anything. 
+     * Does nothing if the next level is already being loaded. 
+     */
+    public void prefetchNextLevel() {
+        if (this.nextLevel == null) {
+            this.nextLevel = CompletableFuture.supplyAsync(this::loadNextLevel, PREFETCH_EXECUTOR);
         }
     }
 
     /**
      * Returns the next level in the game, or null if there is no next level. 
      * 
+     * If the next level was prefetched, waits for it to finish loading (usually it already has) 
+     * and hands it over; otherwise loads it on the calling thread. 
+     * 
      * @return
+     * @throws LevelFormatException if the next level file is malformed
      */
     public Level getNextLevel() {
-        String nextLevelFilename = String.format("levels/level%02d.csv", this.levelNumber + 1);
+        if (this.nextLevel == null) {
+            return this.loadNextLevel();
+        }
+        CompletableFuture<Level> prefetched = this.nextLevel;
+        // Each call returns a level of its own, as if it were loaded here
+        this.nextLevel = null;
+        try {
+            return prefetched.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Level loadNextLevel() {
+        if (this.pack != null) {
+            return this.pack.getLevel(this.levelNumber + 1);
+        }
+        String nextLevelFilename = getFilename(this.levelNumber + 1);
         File nextLevelFile = new File(nextLevelFilename);
         if (!nextLevelFile.exists()) {
             return null;
@@ -0,0 +1,52 @@
+package gameEngine;
+
+/**
+ * Thrown when a level file is malformed, e.g. a terrain row of the wrong length
+ * or an enemy line naming an unknown enemy type.
+ *
+ * Carries the file and line number of the problem, so tools that load many levels
+ * can report every bad level and keep going.
+ */
+public class LevelFormatException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private String filename;
+    private int lineNumber;
+    private String problem;
+
+    /**
+     * Constructs an exception for a problem on a line of a level file.
+     *
+     * @param filename the level file
+     * @param lineNumber the line of the problem, starting at 1, or 0 if it concerns the whole file
+     * @param problem a human-readable description of the problem
+     */
+    public LevelFormatException(String filename, int lineNumber, String problem) {
+        super(lineNumber > 0 ? filename + ":" + lineNumber + ": " + problem : filename + ": " + problem);
+        this.filename = filename;
+        this.lineNumber = lineNumber;
+        this.problem = problem;
+    }
+
+    public String getFilename() {
+        return this.filename;
+    }
+
+    /**
+     * Returns the line of the problem.
+     *
+     * @return the line number, starting at 1, or 0 if the problem concerns the whole file
+     */
+    public int getLineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+     * Returns the description of the problem, without the file and line number.
+     *
+     * @return the description of the problem
+     */
+    public String getProblem() {
+        return this.problem;
+    }
+}
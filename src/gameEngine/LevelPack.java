@@ -0,0 +1,300 @@
+package gameEngine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import gameObjects.EnemyTemplate;
+import gameObjects.EnemyType;
+
+/**
+ * A read-only pack of many levels in one binary file, memory-mapped so any level
+ * can be loaded by number without opening or parsing its CSV file.
+ *
+ * The pack is laid out as:
+ * - a header: magic number, version, number of levels
+ * - an index sorted by level number: level number, offset, and length of each level
+ * - the levels, each holding its original file name, level number, budget, rows, columns,
+ *   the start cell of each path, the offset of each terrain chunk (-1 for chunks of only grass),
+ *   its enemies as (type, level, wave, path) tuples, and then the terrain chunks as stored by TerrainMap
+ *
+ * The terrain of a level is not copied out of the pack: its chunks are read from the mapping
+ * as the game looks at them, so a large map only pages in the chunks around its paths and towers.
+ *
+ * Packs are built from level files with compile, or from the command line:
+ *
+ * java gameEngine.LevelPack levels/levels.pack levels/level01.csv levels/level02.csv
+ */
+public class LevelPack {
+    private static final int MAGIC = 0x54444C50; // "TDLP"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int INDEX_ENTRY_BYTES = 3 * Integer.BYTES;
+    /**
+     * Type, level, wave, and path. The level and wave are ints, since level files allow any int for them.
+     */
+    private static final int ENEMY_BYTES = 1 + 2 * Integer.BYTES + 1;
+
+    private String packFilename;
+    private MappedByteBuffer data;
+    private int numLevels;
+
+    /**
+     * Memory-maps an existing pack. The file is not read until levels are loaded.
+     *
+     * @param packFilename the pack file, as written by compile
+     * @throws IOException if the file cannot be mapped or is not a level pack
+     */
+    public LevelPack(String packFilename) throws IOException {
+        this.packFilename = packFilename;
+        try (FileChannel channel = FileChannel.open(Paths.get(packFilename), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (this.data.capacity() < HEADER_BYTES || this.data.getInt(0) != MAGIC) {
+            throw new IOException(packFilename + " is not a level pack");
+        }
+        int version = this.data.getInt(Integer.BYTES);
+        if (version != VERSION) {
+            throw new IOException("Unsupported level pack version " + version + " in " + packFilename);
+        }
+        this.numLevels = this.data.getInt(2 * Integer.BYTES);
+    }
+
+    public String getPackFilename() {
+        return this.packFilename;
+    }
+
+    public int getNumLevels() {
+        return this.numLevels;
+    }
+
+    /**
+     * Returns the number of the first level in the pack, the level a new game starts at.
+     *
+     * @return the lowest level number in the pack
+     */
+    public int getFirstLevelNumber() {
+        if (this.numLevels == 0) {
+            throw new IllegalStateException(this.packFilename + " holds no levels");
+        }
+        return this.data.getInt(HEADER_BYTES);
+    }
+
+    /**
+     * Returns true if the pack holds the level with the given number.
+     *
+     * @param levelNumber the level number
+     * @return true if the level is in the pack
+     */
+    public boolean hasLevel(int levelNumber) {
+        return this.findIndexEntry(levelNumber) >= 0;
+    }
+
+    /**
+     * Loads the level with the given number from the pack.
+     * Each call returns a new Level, so it can be played independently of earlier ones.
+     *
+     * @param levelNumber the level number
+     * @return the level, or null if the pack does not hold it
+     */
+    public Level getLevel(int levelNumber) {
+        int entry = this.findIndexEntry(levelNumber);
+        if (entry < 0) {
+            return null;
+        }
+        int offset = this.data.getInt(entry + Integer.BYTES);
+        int length = this.data.getInt(entry + 2 * Integer.BYTES);
+        // A slice has its own position, so levels can be loaded from several threads at once
+        ByteBuffer in = this.data.slice(offset, length);
+
+        byte[] filenameBytes = new byte[in.getShort() & 0xFFFF];
+        in.get(filenameBytes);
+        String filename = new String(filenameBytes, StandardCharsets.UTF_8);
+        int number = in.getInt();
+        int budget = in.getInt();
+        int rows = in.getInt();
+        int cols = in.getInt();
+
+        Cell[] pathStarts = new Cell[Level.MAX_PATHS];
+        int numPaths = in.get();
+        for (int i = 0; i < numPaths; i++) {
+            int pathIndex = in.get();
+            pathStarts[pathIndex] = new Cell(in.getInt(), in.getInt());
+        }
+        int[] chunkOffsets = new int[in.getInt()];
+        for (int i = 0; i < chunkOffsets.length; i++) {
+            int chunkOffset = in.getInt();
+            // Chunk offsets are stored relative to the level, and read from the whole pack
+            chunkOffsets[i] = chunkOffset < 0 ? -1 : offset + chunkOffset;
+        }
+        TerrainMap terrain = new TerrainMap(rows, cols, this.data, chunkOffsets, pathStarts);
+
+        Level level = new Level(filename, number, budget, terrain, this);
+        EnemyType[] enemyTypes = EnemyType.values();
+        int numEnemies = in.getInt();
+        for (int i = 0; i < numEnemies; i++) {
+            EnemyType type = enemyTypes[in.get()];
+            int enemyLevel = in.getInt();
+            int waveIndex = in.getInt();
+            int pathIndex = in.get();
+            level.addEnemy(type, enemyLevel, waveIndex, pathIndex);
+        }
+        return level;
+    }
+
+    /**
+     * Returns the byte offset of the index entry for the given level, or -1 if there is none.
+     */
+    private int findIndexEntry(int levelNumber) {
+        int low = 0;
+        int high = this.numLevels - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = HEADER_BYTES + middle * INDEX_ENTRY_BYTES;
+            int middleNumber = this.data.getInt(entry);
+            if (middleNumber < levelNumber) {
+                low = middle + 1;
+            } else if (middleNumber > levelNumber) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parses the given level files and writes them all into one pack.
+     *
+     * @param levelFilenames the level files to pack; their level numbers must be distinct
+     * @param packFilename the pack file to write, replacing any existing file
+     * @throws IOException if the pack cannot be written
+     */
+    public static void compile(List<String> levelFilenames, String packFilename) throws IOException {
+        TreeMap<Integer, byte[]> levels = new TreeMap<Integer, byte[]>();
+        for (String levelFilename : levelFilenames) {
+            Level level = new Level(levelFilename);
+            byte[] previous = levels.put(level.getLevelNumber(), encode(level));
+            if (previous != null) {
+                throw new IllegalArgumentException("Level number " + level.getLevelNumber()
+                        + " appears more than once, last in " + levelFilename);
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(packFilename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(levels.size());
+            int offset = HEADER_BYTES + levels.size() * INDEX_ENTRY_BYTES;
+            for (int levelNumber : levels.keySet()) {
+                int length = levels.get(levelNumber).length;
+                out.writeInt(levelNumber);
+                out.writeInt(offset);
+                out.writeInt(length);
+                offset += length;
+            }
+            for (byte[] level : levels.values()) {
+                out.write(level);
+            }
+        }
+    }
+
+    private static byte[] encode(Level level) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        byte[] filenameBytes = level.getFilename().getBytes(StandardCharsets.UTF_8);
+        out.writeShort(filenameBytes.length);
+        out.write(filenameBytes);
+        out.writeInt(level.getLevelNumber());
+        out.writeInt(level.getBudget());
+        TerrainMap terrain = level.getTerrainMap();
+        out.writeInt(terrain.getRows());
+        out.writeInt(terrain.getColumns());
+
+        int numPaths = 0;
+        for (int pathIndex = 0; pathIndex < Level.MAX_PATHS; pathIndex++) {
+            if (terrain.getPathStart(pathIndex) != null) {
+                numPaths++;
+            }
+        }
+        out.writeByte(numPaths);
+        for (int pathIndex = 0; pathIndex < Level.MAX_PATHS; pathIndex++) {
+            Cell start = terrain.getPathStart(pathIndex);
+            if (start != null) {
+                out.writeByte(pathIndex);
+                out.writeInt(start.getRow());
+                out.writeInt(start.getColumn());
+            }
+        }
+
+        ArrayList<EnemyTemplate> enemies = new ArrayList<EnemyTemplate>();
+        ArrayList<Integer> waveIndices = new ArrayList<Integer>();
+        for (int waveIndex = 1; waveIndex <= level.getTotalWaves(); waveIndex++) {
+            for (EnemyTemplate enemy : level.getWave(waveIndex)) {
+                enemies.add(enemy);
+                waveIndices.add(waveIndex);
+            }
+        }
+
+        // The chunks come last, after the chunk offsets and the enemies
+        int numChunks = terrain.getNumChunks();
+        int chunkOffset = out.size() + Integer.BYTES + numChunks * Integer.BYTES
+                + Integer.BYTES + enemies.size() * ENEMY_BYTES;
+        out.writeInt(numChunks);
+        for (int i = 0; i < numChunks; i++) {
+            if (terrain.getChunk(i) == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(chunkOffset);
+                chunkOffset += TerrainMap.CHUNK_BYTES;
+            }
+        }
+
+        out.writeInt(enemies.size());
+        for (int i = 0; i < enemies.size(); i++) {
+            EnemyTemplate enemy = enemies.get(i);
+            out.writeByte(enemy.getType().ordinal());
+            out.writeInt(enemy.getLevel());
+            out.writeInt(waveIndices.get(i));
+            out.writeByte(enemy.getPathIndex());
+        }
+
+        for (int i = 0; i < numChunks; i++) {
+            if (terrain.getChunk(i) != null) {
+                out.write(terrain.getChunk(i));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Compiles level files into a pack.
+     *
+     * Usage: LevelPack packFile levelFile...
+     *
+     * @param args the pack file to write, then the level files to pack
+     * @throws IOException if the pack cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: LevelPack packFile levelFile...");
+            System.exit(1);
+        }
+        List<String> levelFilenames = Arrays.asList(args).subList(1, args.length);
+        compile(levelFilenames, args[0]);
+        System.out.println("Packed " + levelFilenames.size() + " levels into " + args[0]);
+    }
+}
@@ -0,0 +1,215 @@
+package gameEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import gameObjects.EnemyStore;
+import gameObjects.ProjectilePool;
+import gameObjects.Tower;
+
+/**
+ * Runs the phases of a game tick across the threads of a ForkJoinPool.
+ *
+ * Each phase splits its entities into contiguous index ranges, one task per range,
+ * and waits for every task before the next phase starts. Tasks only write to the entities
+ * in their own range (or to their own scratch space), and their results are merged
+ * on the calling thread in range order, so a parallel tick ends in exactly the same state
+ * as a sequential one:
+ * - enemies advance in parallel, and the number that reached the end is summed
+ * - projectiles fly in parallel
+ * - towers count down in parallel, then the ready towers fire in tower order,
+ *   so spawned projectiles land in the pool in the same order as before
+ * - collisions are found in parallel, one CollisionGrid.Query per range,
+ *   then applied in projectile order
+ *
+ * Phases with too few entities to be worth splitting run on the calling thread.
+ */
+class ParallelTick {
+    /**
+     * The fewest entities worth handing to a task of their own.
+     */
+    private static final int MIN_ENTITIES_PER_TASK = 1024;
+
+    private ForkJoinPool pool;
+    private int[] reachedEnd;
+    private boolean[] readyToFire;
+    private CollisionGrid.Query[] queries;
+    /**
+     * The grid the queries belong to. A new level comes with a new grid, and new queries.
+     */
+    private CollisionGrid queryGrid;
+
+    /**
+     * Constructs a parallel tick running on the given pool.
+     *
+     * @param pool the pool to run tasks on
+     */
+    public ParallelTick(ForkJoinPool pool) {
+        this.pool = pool;
+        this.reachedEnd = new int[pool.getParallelism()];
+        this.readyToFire = new boolean[0];
+        this.queries = new CollisionGrid.Query[0];
+        this.queryGrid = null;
+    }
+
+    /**
+     * Advances every enemy by one tick.
+     *
+     * @param enemies the enemies to advance
+     * @return the number of enemies that reached the end of their path during this tick
+     * @see EnemyStore#advanceAll()
+     */
+    public int advanceEnemies(EnemyStore enemies) {
+        int numTasks = this.numTasks(enemies.size());
+        if (numTasks == 1) {
+            return enemies.advanceAll();
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(numTasks);
+        for (int t = 0; t < numTasks; t++) {
+            final int task = t;
+            final int from = rangeStart(enemies.size(), numTasks, t);
+            final int to = rangeStart(enemies.size(), numTasks, t + 1);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                this.reachedEnd[task] = enemies.advanceRange(from, to);
+            }));
+        }
+        this.invokeAll(tasks);
+
+        int numReachedEnd = 0;
+        for (int t = 0; t < numTasks; t++) {
+            numReachedEnd += this.reachedEnd[t];
+        }
+        return numReachedEnd;
+    }
+
+    /**
+     * Moves every projectile forward by one tick.
+     *
+     * @param projectiles the projectiles to move
+     * @see ProjectilePool#flyAll()
+     */
+    public void flyProjectiles(ProjectilePool projectiles) {
+        int numTasks = this.numTasks(projectiles.size());
+        if (numTasks == 1) {
+            projectiles.flyAll();
+            return;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(numTasks);
+        for (int t = 0; t < numTasks; t++) {
+            final int from = rangeStart(projectiles.size(), numTasks, t);
+            final int to = rangeStart(projectiles.size(), numTasks, t + 1);
+            tasks.add(ForkJoinTask.adapt(() -> projectiles.flyRange(from, to)));
+        }
+        this.invokeAll(tasks);
+    }
+
+    /**
+     * Counts every tower down by one tick, then fires the ready towers in tower order.
+     *
+     * @param towers the towers to update
+     * @param projectiles the pool to fire into
+     */
+    public void updateTowers(List<Tower> towers, ProjectilePool projectiles) {
+        int numTasks = this.numTasks(towers.size());
+        if (numTasks == 1) {
+            for (Tower tower : towers) {
+                tower.updateState(projectiles);
+            }
+            return;
+        }
+
+        if (this.readyToFire.length < towers.size()) {
+            this.readyToFire = new boolean[towers.size()];
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(numTasks);
+        for (int t = 0; t < numTasks; t++) {
+            final int from = rangeStart(towers.size(), numTasks, t);
+            final int to = rangeStart(towers.size(), numTasks, t + 1);
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (int i = from; i < to; i++) {
+                    this.readyToFire[i] = towers.get(i).countDown();
+                }
+            }));
+        }
+        this.invokeAll(tasks);
+
+        for (int i = 0; i < towers.size(); i++) {
+            if (this.readyToFire[i]) {
+                towers.get(i).fire(projectiles);
+            }
+        }
+    }
+
+    /**
+     * Collides every projectile with every enemy whose bounding box it overlaps.
+     * The grid must already be rebuilt from the enemies.
+     * Marks the hit projectiles and the killed enemies for removal, but does not remove them.
+     *
+     * @param grid the collision grid, rebuilt from the enemies
+     * @param projectiles the projectiles in flight
+     * @param enemies the enemies
+     * @param swept true to test the path each projectile traveled during the tick
+     */
+    public void collide(CollisionGrid grid, ProjectilePool projectiles, EnemyStore enemies, boolean swept) {
+        int numTasks = this.numTasks(projectiles.size());
+        if (numTasks == 1) {
+            CollisionGrid.Query query = grid.getDefaultQuery();
+            query.collectHits(projectiles, enemies, 0, projectiles.size(), swept);
+            applyHits(query, projectiles, enemies);
+            return;
+        }
+
+        if (this.queryGrid != grid) {
+            this.queries = new CollisionGrid.Query[numTasks];
+            this.queryGrid = grid;
+        } else if (this.queries.length < numTasks) {
+            this.queries = new CollisionGrid.Query[numTasks];
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(numTasks);
+        for (int t = 0; t < numTasks; t++) {
+            if (this.queries[t] == null) {
+                this.queries[t] = grid.new Query();
+            }
+            final CollisionGrid.Query query = this.queries[t];
+            final int from = rangeStart(projectiles.size(), numTasks, t);
+            final int to = rangeStart(projectiles.size(), numTasks, t + 1);
+            tasks.add(ForkJoinTask.adapt(() -> query.collectHits(projectiles, enemies, from, to, swept)));
+        }
+        this.invokeAll(tasks);
+
+        for (int t = 0; t < numTasks; t++) {
+            applyHits(this.queries[t], projectiles, enemies);
+        }
+    }
+
+    /**
+     * Applies the hits found by a query, in the order they were found.
+     */
+    static void applyHits(CollisionGrid.Query query, ProjectilePool projectiles, EnemyStore enemies) {
+        for (int i = 0; i < query.getNumHits(); i++) {
+            int p = query.getHitProjectile(i);
+            enemies.collideWith(query.getHitEnemy(i), projectiles.getDamage(p), projectiles.isArmorPiercing(p));
+            projectiles.markToRemove(p);
+        }
+    }
+
+    private void invokeAll(List<ForkJoinTask<?>> tasks) {
+        this.pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+    }
+
+    private int numTasks(int numEntities) {
+        int wanted = (numEntities + MIN_ENTITIES_PER_TASK - 1) / MIN_ENTITIES_PER_TASK;
+        return Math.max(1, Math.min(this.reachedEnd.length, wanted));
+    }
+
+    /**
+     * Returns the first index of range t when splitting n entities into numTasks ranges of nearly equal size.
+     */
+    private static int rangeStart(int n, int numTasks, int t) {
+        return (int) ((long) n * t / numTasks);
+    }
+}
@@ -0,0 +1,241 @@
+package gameEngine;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+
+import gameObjects.EnemyStore;
+import gameObjects.ProjectilePool;
+import gameObjects.TextImage;
+import gameObjects.Tower;
+
+/**
+ * Everything needed to draw one moment of a game: the level, towers, enemies, projectiles, and HUD values,
+ * copied out of the game state at the end of a tick or player action.
+ *
+ * The simulation thread fills a snapshot and publishes it through a RenderSnapshotBuffer; from then on
+ * only the painting thread reads it, so painting needs no locks and never sees a half-finished tick.
+ * Snapshots are reused rather than allocated each tick, so the copies keep their storage between ticks.
+ */
+public class RenderSnapshot {
+    /**
+     * The screen areas of the HUD texts, repainted when the budget or lives change.
+     */
+    private static final int HUD_HEIGHT = Cell.SQUARE_SIZE * 3 / 4;
+    private static final int BUDGET_X = TowerDefenseMain.GAME_WINDOW_SIZE.width - Cell.SQUARE_SIZE * 3;
+    private static final int LIVES_X = 0;
+    private static final int HUD_WIDTH = Cell.SQUARE_SIZE * 3;
+
+    /**
+     * Counts the snapshots published by a buffer, starting at 1, or 0 if this one was never published.
+     */
+    private long sequence;
+    private long tick;
+    /**
+     * When the tick of this snapshot ran, from System.nanoTime.
+     */
+    private long tickNanos;
+
+    private Level level;
+    private int waveNumber;
+    private int totalWaves;
+    private boolean activeWave;
+    private int budget;
+    private int lives;
+
+    private ArrayList<Tower> towers;
+    private int selectedTowerIndex;
+    private EnemyStore enemies;
+    private ProjectilePool projectiles;
+
+    /**
+     * The areas of the level that changed since the previous snapshot, in level coordinates.
+     */
+    private DirtyRegion changes;
+    private boolean budgetChanged;
+    private boolean livesChanged;
+
+    /**
+     * The HUD texts, rasterized again only when the budget, the lives, the font, or the screen scale change.
+     */
+    private TextImage budgetLabel;
+    private int budgetLabelValue;
+    private TextImage livesLabel;
+    private int livesLabelValue;
+
+    public RenderSnapshot() {
+        this.sequence = 0;
+        this.tick = 0;
+        this.tickNanos = System.nanoTime();
+        this.level = null;
+        this.towers = new ArrayList<Tower>();
+        this.selectedTowerIndex = -1;
+        this.enemies = new EnemyStore();
+        this.projectiles = new ProjectilePool();
+        this.changes = new DirtyRegion();
+        this.changes.addEverything();
+    }
+
+    /**
+     * Copies the drawable state of the given game, called on the thread that runs it.
+     *
+     * @param state the game to copy
+     * @param worldChanges the areas of the level that changed since the previous snapshot, or null if unknown
+     * @param budgetChanged whether the budget changed since the previous snapshot
+     * @param livesChanged whether the lives changed since the previous snapshot
+     */
+    void capture(GameState state, DirtyRegion worldChanges, boolean budgetChanged, boolean livesChanged) {
+        this.tick = state.getTick();
+        this.level = state.getCurrentLevel();
+        this.waveNumber = this.level == null ? 0 : this.level.getWaveNumber();
+        this.totalWaves = this.level == null ? 0 : this.level.getTotalWaves();
+        this.activeWave = state.isActiveWave();
+        this.budget = state.getBudgetRemaining();
+        this.lives = state.getLivesRemaining();
+
+        // Keep the copies of towers that are still in place, as GameState.readFrom does
+        ArrayList<Tower> sourceTowers = state.getTowers();
+        for (int i = 0; i < sourceTowers.size(); i++) {
+            Tower source = sourceTowers.get(i);
+            Tower tower = i < this.towers.size() ? this.towers.get(i) : null;
+            if (tower == null || !tower.getTypeName().equals(source.getTypeName())
+                    || !tower.getCell().equals(source.getCell())) {
+                tower = GameState.constructNewTower(source.getTypeName(), source.getCell());
+                if (i < this.towers.size()) {
+                    this.towers.set(i, tower);
+                } else {
+                    this.towers.add(tower);
+                }
+            }
+            tower.copyFrom(source);
+        }
+        while (this.towers.size() > sourceTowers.size()) {
+            this.towers.remove(this.towers.size() - 1);
+        }
+        this.selectedTowerIndex = sourceTowers.indexOf(state.getSelectedTower());
+        this.enemies.copyFrom(state.getEnemies());
+        this.projectiles.copyFrom(state.getProjectiles());
+
+        this.changes.clear();
+        if (worldChanges == null) {
+            this.changes.addEverything();
+        } else {
+            this.changes.addAll(worldChanges, 0, 0);
+        }
+        this.budgetChanged = budgetChanged;
+        this.livesChanged = livesChanged;
+    }
+
+    /**
+     * Numbers this snapshot as it is published.
+     *
+     * @param sequence the number of snapshots published so far, including this one
+     * @param tickNanos when the tick of this snapshot ran, from System.nanoTime
+     */
+    void setPublished(long sequence, long tickNanos) {
+        this.sequence = sequence;
+        this.tickNanos = tickNanos;
+    }
+
+    public long getSequence() {
+        return this.sequence;
+    }
+
+    public long getTick() {
+        return this.tick;
+    }
+
+    public long getTickNanos() {
+        return this.tickNanos;
+    }
+
+    /**
+     * Returns the level being played, or null after the last level was completed.
+     *
+     * @return the level
+     */
+    public Level getLevel() {
+        return this.level;
+    }
+
+    public int getWaveNumber() {
+        return this.waveNumber;
+    }
+
+    public int getTotalWaves() {
+        return this.totalWaves;
+    }
+
+    public boolean isActiveWave() {
+        return this.activeWave;
+    }
+
+    /**
+     * Adds every screen area that changed since the previous snapshot to the given region.
+     * Only meaningful if the previous snapshot is the one on screen.
+     *
+     * @param screenChanges the region to add to, in screen coordinates
+     * @param cameraX the left edge of the part of the level in view, in pixels
+     * @param cameraY the top edge of the part of the level in view, in pixels
+     */
+    public void addScreenChanges(DirtyRegion screenChanges, int cameraX, int cameraY) {
+        screenChanges.addAll(this.changes, -cameraX, -cameraY);
+        if (this.budgetChanged) {
+            screenChanges.add(BUDGET_X, 0, HUD_WIDTH, HUD_HEIGHT);
+        }
+        if (this.livesChanged) {
+            screenChanges.add(LIVES_X, 0, HUD_WIDTH, HUD_HEIGHT);
+        }
+    }
+
+    /**
+     * Draws the level, towers, enemies, and projectiles, in level coordinates,
+     * with moving entities part of the way from their positions before the tick to their current ones.
+     *
+     * @param g2d the Graphics2D object to draw on, translated to the part of the level in view
+     * @param alpha how far the next tick is along, from 0 (draw the previous positions) to 1 (the current ones)
+     */
+    public void drawWorld(Graphics2D g2d, double alpha) {
+        if (this.level != null) {
+            this.level.drawOn(g2d);
+        }
+
+        // Only repainted areas are drawn, so skip towers outside them, barrel and highlight included
+        Rectangle clip = g2d.getClipBounds();
+        for (Tower tower : this.towers) {
+            if (clip == null || clip.intersects(tower.getX() - 2, tower.getY() - 2, Cell.SQUARE_SIZE + 4, Cell.SQUARE_SIZE + 4)) {
+                tower.drawOn(g2d);
+            }
+        }
+
+        if (this.selectedTowerIndex >= 0) {
+            this.towers.get(this.selectedTowerIndex).drawHighlightedCell(g2d);
+        }
+
+        this.enemies.drawOn(g2d, alpha);
+        this.projectiles.drawOn(g2d, alpha);
+    }
+
+    /**
+     * Draws the budget in the top right corner and the lives in the top left corner.
+     *
+     * @param g2d the Graphics2D object to draw on
+     */
+    public void drawHUD(Graphics2D g2d) {
+        double scale = TextImage.getDeviceScale(g2d);
+        if (this.budgetLabel == null || this.budgetLabelValue != this.budget
+                || !this.budgetLabel.getFont().equals(g2d.getFont()) || this.budgetLabel.getScale() != scale) {
+            this.budgetLabel = new TextImage("Budget: $" + this.budget, g2d.getFont(), Color.BLACK, scale);
+            this.budgetLabelValue = this.budget;
+        }
+        this.budgetLabel.drawOn(g2d, BUDGET_X, Cell.SQUARE_SIZE / 2);
+
+        if (this.livesLabel == null || this.livesLabelValue != this.lives
+                || !this.livesLabel.getFont().equals(g2d.getFont()) || this.livesLabel.getScale() != scale) {
+            this.livesLabel = new TextImage("Lives: " + this.lives, g2d.getFont(), Color.RED, scale);
+            this.livesLabelValue = this.lives;
+        }
+        this.livesLabel.drawOn(g2d, Cell.SQUARE_SIZE / 4, Cell.SQUARE_SIZE / 2);
+    }
+}
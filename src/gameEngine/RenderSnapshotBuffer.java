@@ -0,0 +1,77 @@
+package gameEngine;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands render snapshots from the simulation thread to the painting thread without locks,
+ * using three snapshots: one being filled by the simulation, one being drawn by the painter,
+ * and the latest published one in between.
+ *
+ * Publishing swaps the filled snapshot with the one in between, and acquiring swaps the drawn one with it
+ * if a newer one was published, so neither thread ever waits for the other or sees a snapshot the other is using.
+ * If the simulation publishes faster than the painter acquires, the painter skips to the latest snapshot;
+ * the sequence numbers tell it when it did.
+ */
+public class RenderSnapshotBuffer {
+    /**
+     * Only touched by the simulation thread.
+     */
+    private RenderSnapshot back;
+    private long lastTick;
+    private long lastTickNanos;
+    /**
+     * The latest published snapshot, or the one the painter handed back if it already has the latest.
+     */
+    private final AtomicReference<RenderSnapshot> latest;
+    private volatile long publishedSequence;
+    /**
+     * Only touched by the painting thread.
+     */
+    private RenderSnapshot front;
+
+    public RenderSnapshotBuffer() {
+        this.back = new RenderSnapshot();
+        this.lastTick = -1;
+        this.lastTickNanos = System.nanoTime();
+        this.latest = new AtomicReference<RenderSnapshot>(new RenderSnapshot());
+        this.publishedSequence = 0;
+        this.front = new RenderSnapshot();
+    }
+
+    /**
+     * Returns the snapshot to fill before the next call to publish. Called on the simulation thread.
+     *
+     * @return the snapshot to fill
+     */
+    RenderSnapshot getBack() {
+        return this.back;
+    }
+
+    /**
+     * Publishes the snapshot returned by getBack, making it the latest. Called on the simulation thread.
+     */
+    void publish() {
+        if (this.back.getTick() != this.lastTick) {
+            // Player actions between ticks publish too, but must not restart the interpolation of the tick
+            this.lastTick = this.back.getTick();
+            this.lastTickNanos = System.nanoTime();
+        }
+        long sequence = this.publishedSequence + 1;
+        this.back.setPublished(sequence, this.lastTickNanos);
+        this.back = this.latest.getAndSet(this.back);
+        this.publishedSequence = sequence;
+    }
+
+    /**
+     * Returns the latest published snapshot, which stays unchanged until the next call.
+     * Called on the painting thread, which must not use a snapshot returned by an earlier call after this one.
+     *
+     * @return the snapshot to draw
+     */
+    public RenderSnapshot acquireLatest() {
+        if (this.publishedSequence > this.front.getSequence()) {
+            this.front = this.latest.getAndSet(this.front);
+        }
+        return this.front;
+    }
+}
@@ -0,0 +1,183 @@
+package gameEngine;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Stores snapshots of game states back to back in one reusable off-heap buffer.
+ *
+ * A snapshot is a flat copy of everything that changes during a game
+ * (towers, enemies, projectiles, budget, lives, and the current wave),
+ * written with bulk copies of the entity arrays, so saving and restoring
+ * take time proportional to the number of entities and allocate nothing
+ * once the arena and the game state have grown to fit.
+ *
+ * Snapshots are numbered in the order they are saved. The arena works like a stack:
+ * truncate(id) throws away snapshot id and every later one, so a search can save a state,
+ * branch from it many times, and reuse the space of the branches it is done with.
+ * Snapshots can only be restored into a game state playing the same level.
+ */
+public class SnapshotArena {
+    private static final int DEFAULT_CAPACITY_BYTES = 64 * 1024;
+    private static final int INITIAL_SNAPSHOT_CAPACITY = 16;
+
+    private ByteBuffer buffer;
+    /**
+     * Snapshot i occupies bytes snapshotStart[i] up to (but excluding) snapshotStart[i + 1].
+     */
+    private int[] snapshotStart;
+    private int numSnapshots;
+
+    public SnapshotArena() {
+        this(DEFAULT_CAPACITY_BYTES);
+    }
+
+    /**
+     * Constructs an arena with the given initial capacity. The arena grows as needed.
+     *
+     * @param capacityBytes the initial size of the buffer, in bytes
+     */
+    public SnapshotArena(int capacityBytes) {
+        this.buffer = ByteBuffer.allocateDirect(capacityBytes);
+        this.snapshotStart = new int[INITIAL_SNAPSHOT_CAPACITY + 1];
+        this.numSnapshots = 0;
+    }
+
+    /**
+     * Saves a snapshot of the given game state.
+     *
+     * @param gameState the game state to save
+     * @return the id of the snapshot, for restore
+     */
+    public int save(GameState gameState) {
+        if (this.numSnapshots + 1 == this.snapshotStart.length) {
+            this.snapshotStart = Arrays.copyOf(this.snapshotStart, this.snapshotStart.length * 2);
+        }
+        int start = this.snapshotStart[this.numSnapshots];
+        while (true) {
+            this.buffer.clear();
+            this.buffer.position(start);
+            try {
+                gameState.writeTo(this.buffer);
+                break;
+            } catch (BufferOverflowException e) {
+                this.grow();
+            }
+        }
+        this.snapshotStart[this.numSnapshots + 1] = this.buffer.position();
+        return this.numSnapshots++;
+    }
+
+    /**
+     * Restores the given game state to a saved snapshot. The snapshot stays in the arena.
+     *
+     * @param id the id returned by save
+     * @param gameState the game state to restore, playing the same level as the saved one
+     */
+    public void restore(int id, GameState gameState) {
+        if (id < 0 || id >= this.numSnapshots) {
+            throw new IllegalArgumentException("No snapshot with id " + id);
+        }
+        this.buffer.clear();
+        this.buffer.position(this.snapshotStart[id]);
+        this.buffer.limit(this.snapshotStart[id + 1]);
+        gameState.readFrom(this.buffer);
+    }
+
+    /**
+     * Throws away the given snapshot and every snapshot saved after it.
+     *
+     * @param id the first snapshot to throw away
+     */
+    public void truncate(int id) {
+        this.numSnapshots = Math.max(0, Math.min(this.numSnapshots, id));
+    }
+
+    /**
+     * Throws away every snapshot, keeping the buffer for reuse.
+     */
+    public void clear() {
+        this.numSnapshots = 0;
+    }
+
+    public int getNumSnapshots() {
+        return this.numSnapshots;
+    }
+
+    /**
+     * Returns the size of a snapshot.
+     *
+     * @param id the id returned by save
+     * @return the size of the snapshot, in bytes
+     */
+    public int getSnapshotSize(int id) {
+        return this.snapshotStart[id + 1] - this.snapshotStart[id];
+    }
+
+    private void grow() {
+        ByteBuffer oldBuffer = this.buffer;
+        this.buffer = ByteBuffer.allocateDirect(oldBuffer.capacity() * 2);
+        oldBuffer.clear();
+        oldBuffer.limit(this.snapshotStart[this.numSnapshots]);
+        this.buffer.put(oldBuffer);
+    }
+
+    /**
+     * Writes the first count values of an array to a snapshot buffer.
+     *
+     * @param buffer the buffer to write to
+     * @param values the array to copy from
+     * @param count the number of values to copy
+     */
+    public static void putInts(ByteBuffer buffer, int[] values, int count) {
+        buffer.asIntBuffer().put(values, 0, count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+    }
+
+    /**
+     * Reads count values written by putInts into the start of an array.
+     *
+     * @param buffer the buffer to read from
+     * @param values the array to copy into
+     * @param count the number of values to copy
+     */
+    public static void getInts(ByteBuffer buffer, int[] values, int count) {
+        buffer.asIntBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+    }
+
+    /**
+     * @see #putInts(ByteBuffer, int[], int)
+     */
+    public static void putDoubles(ByteBuffer buffer, double[] values, int count) {
+        buffer.asDoubleBuffer().put(values, 0, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+    }
+
+    /**
+     * @see #getInts(ByteBuffer, int[], int)
+     */
+    public static void getDoubles(ByteBuffer buffer, double[] values, int count) {
+        buffer.asDoubleBuffer().get(values, 0, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+    }
+
+    /**
+     * @see #putInts(ByteBuffer, int[], int)
+     */
+    public static void putBooleans(ByteBuffer buffer, boolean[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            buffer.put(values[i] ? (byte) 1 : (byte) 0);
+        }
+    }
+
+    /**
+     * @see #getInts(ByteBuffer, int[], int)
+     */
+    public static void getBooleans(ByteBuffer buffer, boolean[] values, int count) {
+        for (int i = 0; i < count; i++) {
+            values[i] = buffer.get() != 0;
+        }
+    }
+}
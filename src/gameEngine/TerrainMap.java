@@ -0,0 +1,233 @@
+package gameEngine;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The terrain of a level, stored compactly enough for maps of up to MAX_SIZE by MAX_SIZE cells.
+ *
+ * Each cell takes half a byte: its terrain character is stored as a 4-bit code.
+ * The map is split into square chunks of CHUNK_SIZE by CHUNK_SIZE cells, stored one after another
+ * in row-major order, so nearby cells share cache lines. A chunk of nothing but grass is never stored,
+ * so open areas of a large map cost no memory.
+ *
+ * A map loaded from a level pack reads its chunks straight from the memory-mapped pack,
+ * so the operating system only pages in the chunks that are actually looked at,
+ * e.g. those around paths and towers. Such a map is read-only.
+ *
+ * The map also remembers the start cell of each path ('0' to '9'), so finding the paths
+ * does not need to look at every cell.
+ */
+public class TerrainMap {
+    public static final int MAX_SIZE = 4096;
+
+    static final int CHUNK_BITS = 6;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    /**
+     * Two cells per byte.
+     */
+    static final int CHUNK_BYTES = CHUNK_SIZE * CHUNK_SIZE / 2;
+
+    /**
+     * The terrain characters, indexed by their 4-bit code. Code 0 is grass, so new chunks start as grass.
+     */
+    private static final char[] CODE_TO_TERRAIN = { '.', 'P', 'x', 'X', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' };
+    private static final byte[] TERRAIN_TO_CODE = new byte[128];
+    static {
+        Arrays.fill(TERRAIN_TO_CODE, (byte) -1);
+        for (int code = 0; code < CODE_TO_TERRAIN.length; code++) {
+            TERRAIN_TO_CODE[CODE_TO_TERRAIN[code]] = (byte) code;
+        }
+    }
+
+    private int rows;
+    private int cols;
+    private int chunkCols;
+    /**
+     * The stored chunks, indexed by chunkRow * chunkCols + chunkCol; null for chunks of only grass.
+     */
+    private byte[][] chunks;
+    /**
+     * If not null, the pack the chunks are read from, and the offset of each chunk in it (-1 for only grass).
+     */
+    private ByteBuffer source;
+    private int[] sourceOffsets;
+    /**
+     * The start cell of each path, indexed by the digit on it, or null if there is no such path.
+     */
+    private Cell[] pathStarts;
+
+    /**
+     * Constructs a map of the given width with no rows yet. Rows are added with addRow.
+     *
+     * @param cols the number of columns, from 1 to MAX_SIZE
+     */
+    public TerrainMap(int cols) {
+        if (cols < 1 || cols > MAX_SIZE) {
+            throw new IllegalArgumentException("A map must have 1 to " + MAX_SIZE + " columns, got " + cols);
+        }
+        this.rows = 0;
+        this.cols = cols;
+        this.chunkCols = (cols + CHUNK_MASK) >> CHUNK_BITS;
+        this.chunks = new byte[0][];
+        this.source = null;
+        this.sourceOffsets = null;
+        this.pathStarts = new Cell[Level.MAX_PATHS];
+    }
+
+    /**
+     * Constructs a read-only map whose chunks are read from a level pack when needed.
+     *
+     * @param rows the number of rows
+     * @param cols the number of columns
+     * @param source the pack holding the chunks
+     * @param sourceOffsets the offset in the pack of each chunk, or -1 for a chunk of only grass
+     * @param pathStarts the start cell of each path, indexed by the digit on it
+     */
+    TerrainMap(int rows, int cols, ByteBuffer source, int[] sourceOffsets, Cell[] pathStarts) {
+        this.rows = rows;
+        this.cols = cols;
+        this.chunkCols = (cols + CHUNK_MASK) >> CHUNK_BITS;
+        this.chunks = null;
+        this.source = source;
+        this.sourceOffsets = sourceOffsets;
+        this.pathStarts = pathStarts;
+    }
+
+    /**
+     * Returns true if the given character is a valid terrain character.
+     *
+     * @param terrain the character
+     * @return true for '.', 'P', 'x', 'X', and '0' to '9'
+     */
+    public static boolean isValidTerrain(char terrain) {
+        return terrain < TERRAIN_TO_CODE.length && TERRAIN_TO_CODE[terrain] >= 0;
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public int getColumns() {
+        return this.cols;
+    }
+
+    /**
+     * Adds a row of grass at the bottom of the map.
+     *
+     * @return the index of the new row
+     */
+    public int addRow() {
+        if (this.source != null) {
+            throw new UnsupportedOperationException("Maps loaded from a level pack are read-only");
+        }
+        if (this.rows == MAX_SIZE) {
+            throw new IllegalStateException("A map can have at most " + MAX_SIZE + " rows");
+        }
+        if ((this.rows & CHUNK_MASK) == 0) {
+            this.chunks = Arrays.copyOf(this.chunks, this.chunks.length + this.chunkCols);
+        }
+        return this.rows++;
+    }
+
+    /**
+     * Returns the terrain character of the given cell, e.g. '.' for grass.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @return the terrain character
+     */
+    public char get(int row, int col) {
+        int chunk = this.chunkIndex(row, col);
+        int cell = cellIndex(row, col);
+        int packed;
+        if (this.source != null) {
+            int offset = this.sourceOffsets[chunk];
+            if (offset < 0) {
+                return CODE_TO_TERRAIN[0];
+            }
+            packed = this.source.get(offset + (cell >> 1));
+        } else {
+            byte[] data = this.chunks[chunk];
+            if (data == null) {
+                return CODE_TO_TERRAIN[0];
+            }
+            packed = data[cell >> 1];
+        }
+        return CODE_TO_TERRAIN[(packed >> ((cell & 1) << 2)) & 0xF];
+    }
+
+    /**
+     * Sets the terrain character of the given cell.
+     *
+     * @param row the row of the cell
+     * @param col the column of the cell
+     * @param terrain the terrain character, one for which isValidTerrain is true
+     */
+    public void set(int row, int col, char terrain) {
+        if (this.source != null) {
+            throw new UnsupportedOperationException("Maps loaded from a level pack are read-only");
+        }
+        if (!isValidTerrain(terrain)) {
+            throw new IllegalArgumentException("Unknown terrain '" + terrain + "'");
+        }
+        int chunk = this.chunkIndex(row, col);
+        int code = TERRAIN_TO_CODE[terrain];
+        if (this.chunks[chunk] == null) {
+            if (code == 0) {
+                return;
+            }
+            this.chunks[chunk] = new byte[CHUNK_BYTES];
+        }
+        int cell = cellIndex(row, col);
+        int shift = (cell & 1) << 2;
+        byte[] data = this.chunks[chunk];
+        data[cell >> 1] = (byte) ((data[cell >> 1] & ~(0xF << shift)) | (code << shift));
+
+        if (terrain >= '0' && terrain <= '9') {
+            this.pathStarts[terrain - '0'] = new Cell(row, col);
+        }
+    }
+
+    /**
+     * Returns the start cell of the given path.
+     *
+     * @param pathIndex the path index (the digit on its start cell)
+     * @return the start cell, or null if the map has no such path
+     */
+    public Cell getPathStart(int pathIndex) {
+        return this.pathStarts[pathIndex];
+    }
+
+    /**
+     * Returns the number of chunks the map is split into.
+     *
+     * @return the number of chunks
+     */
+    int getNumChunks() {
+        return ((this.rows + CHUNK_MASK) >> CHUNK_BITS) * this.chunkCols;
+    }
+
+    /**
+     * Returns the packed cells of a chunk, or null if the chunk is only grass. Only for maps not loaded from a pack.
+     *
+     * @param chunk the chunk index, chunkRow * (number of chunk columns) + chunkCol
+     * @return the CHUNK_BYTES bytes of the chunk, or null
+     */
+    byte[] getChunk(int chunk) {
+        return this.chunks[chunk];
+    }
+
+    private int chunkIndex(int row, int col) {
+        if (row < 0 || row >= this.rows || col < 0 || col >= this.cols) {
+            throw new IndexOutOfBoundsException("Cell (" + row + ", " + col + ") is outside the "
+                    + this.rows + " by " + this.cols + " map");
+        }
+        return (row >> CHUNK_BITS) * this.chunkCols + (col >> CHUNK_BITS);
+    }
+
+    private static int cellIndex(int row, int col) {
+        return ((row & CHUNK_MASK) << CHUNK_BITS) | (col & CHUNK_MASK);
+    }
+}
@@ -1,25 +1,32 @@
 package gameEngine;
 
-import com.formdev.flatlaf.FlatLightLaf;
-
 import java.awt.Dimension;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.awt.BorderLayout;
+import java.io.IOException;
 
 import javax.swing.*;
 
 public class TowerDefenseMain {
+	/**
+	 * Loaded by name so that headless tools using GAME_WINDOW_SIZE do not need FlatLaf on the classpath.
+	 */
+	private static final String LOOK_AND_FEEL_CLASS_NAME = "com.formdev.flatlaf.FlatLightLaf";
+
 	public static final Dimension GAME_WINDOW_SIZE = new Dimension(800, 640);
 	private static final int CONTROLS_PANEL_HEIGHT = 60;
 
     public static final String DEFAULT_TOWER_TYPE = "Archer";
+	private static final String RECORD_OPTION = "--record=";
+	private static final String PACK_OPTION = "--pack=";
+	private static final String ACTIVE_RENDERING_OPTION = "--active-rendering";
 
 	public static void main(String[] args) {
 		// Set look and feel to FlatLaf
 		try {
-			UIManager.setLookAndFeel(new FlatLightLaf());
-		} catch (UnsupportedLookAndFeelException e) {
+			UIManager.setLookAndFeel(LOOK_AND_FEEL_CLASS_NAME);
+		} catch (ReflectiveOperationException | UnsupportedLookAndFeelException e) {
 			JOptionPane.showMessageDialog(null, "Failed to set look and feel to FlatLaf!", "Error", JOptionPane.ERROR_MESSAGE);
 		}
 
@@ -27,8 +34,18 @@ public class TowerDefenseMain {
 		JFrame frame = new JFrame();
 		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
-		GameComponent gameComponent = new GameComponent();
+		GameComponent gameComponent = new GameComponent(loadFirstLevel(args));
 		gameComponent.setPreferredSize(GAME_WINDOW_SIZE);
+		for (String arg : args) {
+			if (arg.startsWith(RECORD_OPTION)) {
+				String replayFile = arg.substring(RECORD_OPTION.length());
+				try {
+					gameComponent.startRecording(replayFile);
+				} catch (IOException e) {
+					System.err.println("Error recording replay to " + replayFile + ": " + e.getMessage());
+				}
+			}
+		}
 		frame.add(gameComponent, BorderLayout.CENTER);
 
 		JPanel controlPanel = new JPanel();
@@ -51,5 +68,28 @@ public class TowerDefenseMain {
 		frame.pack();
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		frame.setVisible(true);
+
+		if (Arrays.asList(args).contains(ACTIVE_RENDERING_OPTION)) {
+			SwingUtilities.invokeLater(gameComponent::startActiveRendering);
+		}
+	}
+
+	/**
+	 * Returns the first level of the level pack given with --pack=FILE, 
+	 * or the first level file if there is no pack or it cannot be read. 
+	 */
+	private static Level loadFirstLevel(String[] args) {
+		for (String arg : args) {
+			if (arg.startsWith(PACK_OPTION)) {
+				String packFile = arg.substring(PACK_OPTION.length());
+				try {
+					LevelPack pack = new LevelPack(packFile);
+					return pack.getLevel(pack.getFirstLevelNumber());
+				} catch (IOException | IllegalStateException e) {
+					System.err.println("Error loading level pack " + packFile + ": " + e.getMessage());
+				}
+			}
+		}
+		return new Level(GameState.FIRST_LEVEL_FILE);
 	}
 }
\ No newline at end of file
@@ -1,38 +1,107 @@
 package gameEngine;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
-import javax.swing.Timer;
+import javax.swing.SwingUtilities;
 
-public class WaveTimer implements ActionListener {
-    private static final int DELAY_MS = 100;
+/**
+ * Runs the game on its own simulation thread: the ticks of each wave, and every player action,
+ * so the game state is only ever touched by that thread.
+ * After each tick or action the game state publishes a render snapshot, which the game component
+ * paints on the event dispatch thread, so a slow frame never delays a tick.
+ */
+public class WaveTimer implements Runnable {
+    /**
+     * The time between ticks, also used to interpolate frames drawn between ticks. 
+     */
+    static final int DELAY_MS = 100;
 
-    private Timer timer;
+    private ScheduledExecutorService simulation;
+    /**
+     * The ticks of the current wave, or null between waves. Only touched by the simulation thread.
+     */
+    private ScheduledFuture<?> ticks;
     private GameState gameState;
     private GameComponent gameComponent;
 
     public WaveTimer(GameComponent gameComponent, GameState gameState) {
         this.gameComponent = gameComponent;
         this.gameState = gameState;
-        this.timer = new Timer(DELAY_MS, this);
+        this.simulation = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Simulation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ticks = null;
     }
 
     public void start() {
-        this.gameState.startWave();
-        this.timer.start();
+        this.execute(() -> {
+            this.gameState.startWave();
+            if (this.ticks == null) {
+                this.ticks = this.simulation.scheduleAtFixedRate(this, DELAY_MS, DELAY_MS, TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Stops ticking until the next call to start. Must be called on the simulation thread,
+     * e.g. from a game state listener.
+     */
+    public void stop() {
+        if (this.ticks != null) {
+            this.ticks.cancel(false);
+            this.ticks = null;
+        }
+    }
+
+    /**
+     * Runs a player action on the simulation thread, between ticks,
+     * then publishes the result and repaints what it changed.
+     *
+     * @param action the action, which may change the game state
+     */
+    public void execute(Runnable action) {
+        this.simulation.execute(() -> {
+            action.run();
+            this.publish();
+        });
+    }
+
+    /**
+     * Runs a task on the simulation thread, between ticks, without publishing a render snapshot,
+     * e.g. to finish a replay when the program exits.
+     *
+     * @param task the task
+     * @return a future that completes once the task has run
+     */
+    public Future<?> submit(Runnable task) {
+        return this.simulation.submit(task);
     }
 
     @Override
-    public void actionPerformed(ActionEvent e) {
-        if (!this.gameState.isActiveWave()) {
-            this.timer.stop();
-            this.gameState.endWave();
-            this.gameComponent.repaint();
-            return;
+    public void run() {
+        try {
+            if (!this.gameState.isActiveWave()) {
+                this.stop();
+                this.gameState.endWave();
+            } else {
+                this.gameComponent.updateGameState();
+            }
+            this.publish();
+        } catch (RuntimeException e) {
+            // A periodic task that throws is silently never run again, so report it and keep ticking
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
         }
+    }
 
-        this.gameComponent.updateGameState();
-        this.gameComponent.repaint();
+    private void publish() {
+        this.gameState.publishRenderSnapshot();
+        SwingUtilities.invokeLater(this.gameComponent::repaintChanges);
     }
 }
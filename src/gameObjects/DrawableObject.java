@@ -1,51 +1,40 @@
 package gameObjects;
 
 import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-
-import javax.imageio.ImageIO;
-import javax.swing.JFileChooser;
-import javax.swing.JOptionPane;
-import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
  * Represents a drawable object in the game.
- * Each drawable object has an image and a fallback option in case the image cannot be loaded. 
+ * Each drawable object has a sprite and a fallback shape, drawn until the sprite has loaded
+ * or if it cannot be loaded.
+ * Sprites are loaded in the background by SpriteAtlas and shared by every object drawn with the same image.
  */
 public abstract class DrawableObject {
 
-    private BufferedImage image;
+    private Sprite sprite;
     
     /**
-     * Attempts to load an image from the given filename.
-     * If the image cannot be loaded, prompts the user for a replacement file using JFileChooser.
+     * Starts loading the sprite in the given image file, without waiting for it.
+     * The fallback shape is drawn until the sprite is ready; if the file cannot be loaded,
+     * the error is reported once and the fallback shape is kept.
      * 
      * @param filename the name of the image file to load
      */
     public void loadImage(String filename) {
+        this.sprite = SpriteAtlas.getSprite(filename);
+    }
 
-        try {
-            this.image = ImageIO.read(new File(filename));
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(null, "Failed to load image: " + filename, "Error", JOptionPane.ERROR_MESSAGE);
-            JFileChooser fileChooser = new JFileChooser("resources/images/");
-            fileChooser.setDialogTitle("Select Replacement Image");
-            fileChooser.setFileFilter(new FileNameExtensionFilter("Image files", "png", "jpg", "jpeg", "gif"));
-            int result = fileChooser.showOpenDialog(null);
-            if (result == JFileChooser.APPROVE_OPTION) {
-                try {
-                    this.image = ImageIO.read(fileChooser.getSelectedFile());
-                } catch (IOException e1) {
-                    JOptionPane.showMessageDialog(null, "Failed to load image: " + filename, "Error", JOptionPane.ERROR_MESSAGE);
-                }
-            }
-        }
+    /**
+     * Returns the image file of the sprite to draw this object with, 
+     * loaded the first time the object is drawn, or null to always draw the fallback shape.
+     * 
+     * @return the image file, or null
+     */
+    protected String getSpriteFilename() {
+        return null;
     }
 
     /**
-     * Draws a fallback shape if the image cannot be loaded.
+     * Draws a fallback shape while the sprite is not loaded, or if it cannot be loaded.
      * 
      * @param g2d the Graphics2D object to draw on
      */
@@ -67,15 +56,18 @@ public abstract class DrawableObject {
 
     /**
      * Draws the object on the given Graphics2D object. 
-     * If the image is null, draws a fallback shape instead.
+     * If the sprite is not ready, draws a fallback shape instead.
      * 
      * @param g2d the Graphics2D object to draw on
      */
     public void drawOn(Graphics2D g2d) {
-        if (this.image == null) {
+        if (this.sprite == null && this.getSpriteFilename() != null) {
+            this.loadImage(this.getSpriteFilename());
+        }
+        if (this.sprite == null || !this.sprite.isReady()) {
             this.drawFallbackShape(g2d);
         } else {
-            g2d.drawImage(this.image, this.getX(), this.getY(), null);
+            this.sprite.drawOn(g2d, this.getX(), this.getY());
         }
     }
 }
@@ -0,0 +1,660 @@
+package gameObjects;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gameEngine.Cell;
+import gameEngine.DirtyRegion;
+import gameEngine.SnapshotArena;
+
+/**
+ * Stores every live enemy as a structure of arrays.
+ *
+ * Enemy i is described by pathPosition[i], hitPoints[i], boundsX[i], and so on, for i from 0 to size() - 1.
+ * The fields read every tick (tick counters, hit points, armor, bounding boxes) are primitive arrays,
+ * and the bounding box is only recomputed when an enemy moves to a new cell.
+ * Behavior that depends on the kind of enemy is looked up from its EnemyType.
+ * Removed enemies are compacted away by moving the last live enemy into the freed slot,
+ * so enemy indices are only stable between calls to removeMarked.
+ *
+ * If a change region is set, the store also remembers where each enemy was last drawn,
+ * so it can report the areas of enemies that moved, were hit, spawned, or were removed since then.
+ */
+public class EnemyStore {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_PATH_CAPACITY = 4;
+    private static final EnemyType[] TYPES = EnemyType.values();
+
+    private static final int HEALTH_BAR_HEIGHT = 4;
+    private static final Color HEALTH_BAR_DAMAGE_COLOR = new Color(60, 60, 60);
+    /**
+     * Health bars rasterized once per bar width and damaged width, keyed by width << 16 | damaged width. 
+     * The damaged part is a whole number of pixels, so a bar w pixels wide has only w + 1 states.
+     * Each image has a pixel of room on every side for the antialiased outline.
+     */
+    private static final ConcurrentHashMap<Integer, BufferedImage> HEALTH_BARS = new ConcurrentHashMap<Integer, BufferedImage>();
+
+    private int size;
+
+    private byte[] type;
+    /**
+     * The index of the path each enemy follows (the digit on its start cell), or -1 if it has no path.
+     */
+    private int[] pathId;
+    private int[] pathPosition;
+    private int[] ticksSinceLastMove;
+    private int[] pace;
+    private int[] hitPoints;
+    private int[] maxHitPoints;
+    private int[] armorClass;
+    private int[] jitterX;
+    private int[] jitterY;
+    private int[] boundsX;
+    private int[] boundsY;
+    /**
+     * The bounding box position before the most recent tick, so drawing can move enemies smoothly between ticks.
+     */
+    private int[] previousBoundsX;
+    private int[] previousBoundsY;
+    private int[] width;
+    private int[] height;
+    private boolean[] shouldRemove;
+    private boolean[] reachedEnd;
+    /**
+     * The position and hit points each enemy had when its changes were last reported,
+     * or isDrawn false for enemies spawned since then.
+     */
+    private int[] drawnX;
+    private int[] drawnY;
+    private int[] drawnHitPoints;
+    private boolean[] isDrawn;
+    /**
+     * Collects the areas of changed enemies, in level coordinates, or null if changes are not tracked.
+     */
+    private DirtyRegion changes;
+
+    /**
+     * The cells of each path, by path index, shared by every enemy on the same path.
+     */
+    private Cell[][] paths;
+
+    public EnemyStore() {
+        this.size = 0;
+        this.allocate(INITIAL_CAPACITY);
+        this.paths = new Cell[INITIAL_PATH_CAPACITY][];
+    }
+
+    private void allocate(int capacity) {
+        this.type = new byte[capacity];
+        this.pathId = new int[capacity];
+        this.pathPosition = new int[capacity];
+        this.ticksSinceLastMove = new int[capacity];
+        this.pace = new int[capacity];
+        this.hitPoints = new int[capacity];
+        this.maxHitPoints = new int[capacity];
+        this.armorClass = new int[capacity];
+        this.jitterX = new int[capacity];
+        this.jitterY = new int[capacity];
+        this.boundsX = new int[capacity];
+        this.boundsY = new int[capacity];
+        this.previousBoundsX = new int[capacity];
+        this.previousBoundsY = new int[capacity];
+        this.width = new int[capacity];
+        this.height = new int[capacity];
+        this.shouldRemove = new boolean[capacity];
+        this.reachedEnd = new boolean[capacity];
+        this.drawnX = new int[capacity];
+        this.drawnY = new int[capacity];
+        this.drawnHitPoints = new int[capacity];
+        this.isDrawn = new boolean[capacity];
+    }
+
+    private void grow() {
+        int capacity = this.type.length * 2;
+        this.type = Arrays.copyOf(this.type, capacity);
+        this.pathId = Arrays.copyOf(this.pathId, capacity);
+        this.pathPosition = Arrays.copyOf(this.pathPosition, capacity);
+        this.ticksSinceLastMove = Arrays.copyOf(this.ticksSinceLastMove, capacity);
+        this.pace = Arrays.copyOf(this.pace, capacity);
+        this.hitPoints = Arrays.copyOf(this.hitPoints, capacity);
+        this.maxHitPoints = Arrays.copyOf(this.maxHitPoints, capacity);
+        this.armorClass = Arrays.copyOf(this.armorClass, capacity);
+        this.jitterX = Arrays.copyOf(this.jitterX, capacity);
+        this.jitterY = Arrays.copyOf(this.jitterY, capacity);
+        this.boundsX = Arrays.copyOf(this.boundsX, capacity);
+        this.boundsY = Arrays.copyOf(this.boundsY, capacity);
+        this.previousBoundsX = Arrays.copyOf(this.previousBoundsX, capacity);
+        this.previousBoundsY = Arrays.copyOf(this.previousBoundsY, capacity);
+        this.width = Arrays.copyOf(this.width, capacity);
+        this.height = Arrays.copyOf(this.height, capacity);
+        this.shouldRemove = Arrays.copyOf(this.shouldRemove, capacity);
+        this.reachedEnd = Arrays.copyOf(this.reachedEnd, capacity);
+        this.drawnX = Arrays.copyOf(this.drawnX, capacity);
+        this.drawnY = Arrays.copyOf(this.drawnY, capacity);
+        this.drawnHitPoints = Arrays.copyOf(this.drawnHitPoints, capacity);
+        this.isDrawn = Arrays.copyOf(this.isDrawn, capacity);
+    }
+
+    /**
+     * Returns the number of live enemies.
+     *
+     * @return the number of enemies
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Starts or stops reporting the areas of changed enemies to the given region.
+     *
+     * @param changes the region to add changed areas to, in level coordinates, or null to stop tracking
+     */
+    public void setChangeRegion(DirtyRegion changes) {
+        this.changes = changes;
+        Arrays.fill(this.isDrawn, 0, this.size, false);
+    }
+
+    /**
+     * Adds the old and new areas of every enemy that moved, was hit, or spawned since the last call
+     * to the change region. Removed enemies are added as they are removed.
+     * Does nothing if no change region is set.
+     */
+    public void addChangedBounds() {
+        if (this.changes == null) {
+            return;
+        }
+        for (int i = 0; i < this.size; i++) {
+            if (this.isDrawn[i] && this.drawnX[i] == this.boundsX[i] && this.drawnY[i] == this.boundsY[i]
+                    && this.drawnHitPoints[i] == this.hitPoints[i]) {
+                continue;
+            }
+            if (this.isDrawn[i]) {
+                this.addDrawnBounds(i);
+            }
+            this.drawnX[i] = this.boundsX[i];
+            this.drawnY[i] = this.boundsY[i];
+            this.drawnHitPoints[i] = this.hitPoints[i];
+            this.isDrawn[i] = true;
+            this.addDrawnBounds(i);
+        }
+    }
+
+    /**
+     * Adds the area enemy i was last drawn in, including its health bar above or below it, to the change region.
+     */
+    private void addDrawnBounds(int i) {
+        this.changes.add(this.drawnX[i] - 1, this.drawnY[i] - HEALTH_BAR_HEIGHT - 3,
+                this.width[i] + 2, this.height[i] + 2 * HEALTH_BAR_HEIGHT + 6);
+    }
+
+    /**
+     * Adds a new enemy at the start of its path.
+     *
+     * @param template the type, level, and path of the enemy
+     * @param spawnDelayTicks the number of extra ticks before the enemy makes its first move
+     * @param jitterX the horizontal offset from the center of the cell, in pixels
+     * @param jitterY the vertical offset from the center of the cell, in pixels
+     */
+    public void spawn(EnemyTemplate template, int spawnDelayTicks, int jitterX, int jitterY) {
+        if (this.size == this.type.length) {
+            this.grow();
+        }
+        EnemyType enemyType = template.getType();
+        int i = this.size++;
+        this.type[i] = (byte) enemyType.ordinal();
+        this.pathId[i] = template.getPath() == null ? -1 : template.getPathIndex();
+        if (template.getPath() != null) {
+            this.setPath(template.getPathIndex(), template.getPath());
+        }
+        this.pathPosition[i] = 0;
+        // Moving requires ticksSinceLastMove to reach pace; start negative to delay.
+        this.ticksSinceLastMove[i] = spawnDelayTicks > 0 ? -spawnDelayTicks : 0;
+        this.pace[i] = enemyType.getPace();
+        this.maxHitPoints[i] = enemyType.getMaxHitPoints(template.getLevel());
+        this.hitPoints[i] = this.maxHitPoints[i];
+        this.armorClass[i] = enemyType.getArmorClass();
+        this.jitterX[i] = jitterX;
+        this.jitterY[i] = jitterY;
+        this.width[i] = enemyType.getWidth();
+        this.height[i] = enemyType.getHeight();
+        this.shouldRemove[i] = false;
+        this.reachedEnd[i] = false;
+        this.isDrawn[i] = false;
+        this.updateBounds(i);
+        this.previousBoundsX[i] = this.boundsX[i];
+        this.previousBoundsY[i] = this.boundsY[i];
+    }
+
+    /**
+     * Sets the cells of the path with the given index.
+     * Spawning an enemy sets its path, but restoring enemies from a snapshot
+     * needs the paths of the level to be set beforehand.
+     *
+     * @param pathIndex the path index (the digit on its start cell)
+     * @param path the cells of the path, as returned by Level.getPath
+     */
+    public void setPath(int pathIndex, Cell[] path) {
+        if (pathIndex >= this.paths.length) {
+            this.paths = Arrays.copyOf(this.paths, Math.max(pathIndex + 1, this.paths.length * 2));
+        }
+        this.paths[pathIndex] = path;
+    }
+
+    private void updateBounds(int i) {
+        Cell cell = this.getCell(i);
+        if (cell == null) {
+            return;
+        }
+        this.boundsX[i] = cell.getPixelX() + Cell.SQUARE_SIZE / 2 - this.width[i] / 2 + this.jitterX[i];
+        this.boundsY[i] = cell.getPixelY() + Cell.SQUARE_SIZE / 2 - this.height[i] / 2 + this.jitterY[i];
+    }
+
+    /**
+     * Advances every enemy by one tick, moving it to the next cell of its path once every pace ticks.
+     * Enemies that move past the last cell of their path are marked as having reached the end.
+     *
+     * @return the number of enemies that reached the end of their path during this tick
+     */
+    public int advanceAll() {
+        return this.advanceRange(0, this.size);
+    }
+
+    /**
+     * Advances enemies from (inclusive) to to (exclusive) by one tick, as advanceAll does.
+     * Only touches the given enemies, so disjoint ranges can be advanced on different threads.
+     *
+     * @param from the first enemy index
+     * @param to one past the last enemy index
+     * @return the number of those enemies that reached the end of their path during this tick
+     */
+    public int advanceRange(int from, int to) {
+        int numReachedEnd = 0;
+        for (int i = from; i < to; i++) {
+            this.previousBoundsX[i] = this.boundsX[i];
+            this.previousBoundsY[i] = this.boundsY[i];
+            this.ticksSinceLastMove[i]++;
+            if (this.ticksSinceLastMove[i] < this.pace[i]) {
+                continue;
+            }
+            this.ticksSinceLastMove[i] = 0;
+
+            if (this.pathId[i] >= 0 && this.pathPosition[i] + 1 < this.paths[this.pathId[i]].length) {
+                this.pathPosition[i]++;
+                this.updateBounds(i);
+                continue;
+            }
+
+            // No forward path found (or no path at all): we've reached the end
+            if (!this.reachedEnd[i]) {
+                this.reachedEnd[i] = true;
+                this.shouldRemove[i] = true;
+                numReachedEnd++;
+            }
+        }
+        return numReachedEnd;
+    }
+
+    /**
+     * Collides enemy i with a projectile.
+     * Armor reduces the damage of projectiles that do not pierce it.
+     * The caller removes the projectile afterwards.
+     *
+     * @param i the enemy index
+     * @param damage the damage points of the projectile
+     * @param isArmorPiercing whether the projectile pierces armor
+     */
+    public void collideWith(int i, int damage, boolean isArmorPiercing) {
+        int effectiveDamage = isArmorPiercing ? damage : damage - this.armorClass[i];
+        if (effectiveDamage > 0) {
+            this.hitPoints[i] -= effectiveDamage;
+        }
+        if (this.isDead(i)) {
+            this.shouldRemove[i] = true;
+        }
+    }
+
+    public boolean isDead(int i) {
+        return this.hitPoints[i] <= 0;
+    }
+
+    public boolean shouldRemove(int i) {
+        return this.shouldRemove[i];
+    }
+
+    public boolean hasReachedEnd(int i) {
+        return this.reachedEnd[i];
+    }
+
+    /**
+     * Removes every enemy marked for removal.
+     * The last live enemy is moved into each freed slot.
+     *
+     * @return the number of removed enemies that were killed (rather than reaching the end of their path)
+     */
+    public int removeMarked() {
+        int numKilled = 0;
+        int i = 0;
+        while (i < this.size) {
+            if (this.shouldRemove[i]) {
+                if (!this.reachedEnd[i]) {
+                    numKilled++;
+                }
+                if (this.changes != null && this.isDrawn[i]) {
+                    this.addDrawnBounds(i);
+                }
+                this.moveSlot(this.size - 1, i);
+                this.size--;
+            } else {
+                i++;
+            }
+        }
+        return numKilled;
+    }
+
+    private void moveSlot(int from, int to) {
+        this.type[to] = this.type[from];
+        this.pathId[to] = this.pathId[from];
+        this.pathPosition[to] = this.pathPosition[from];
+        this.ticksSinceLastMove[to] = this.ticksSinceLastMove[from];
+        this.pace[to] = this.pace[from];
+        this.hitPoints[to] = this.hitPoints[from];
+        this.maxHitPoints[to] = this.maxHitPoints[from];
+        this.armorClass[to] = this.armorClass[from];
+        this.jitterX[to] = this.jitterX[from];
+        this.jitterY[to] = this.jitterY[from];
+        this.boundsX[to] = this.boundsX[from];
+        this.boundsY[to] = this.boundsY[from];
+        this.previousBoundsX[to] = this.previousBoundsX[from];
+        this.previousBoundsY[to] = this.previousBoundsY[from];
+        this.width[to] = this.width[from];
+        this.height[to] = this.height[from];
+        this.shouldRemove[to] = this.shouldRemove[from];
+        this.reachedEnd[to] = this.reachedEnd[from];
+        this.drawnX[to] = this.drawnX[from];
+        this.drawnY[to] = this.drawnY[from];
+        this.drawnHitPoints[to] = this.drawnHitPoints[from];
+        this.isDrawn[to] = this.isDrawn[from];
+    }
+
+    /**
+     * Writes every enemy to a snapshot. The paths are not written; they belong to the level.
+     *
+     * @param buffer the snapshot buffer to write to
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.size);
+        buffer.put(this.type, 0, this.size);
+        SnapshotArena.putInts(buffer, this.pathId, this.size);
+        SnapshotArena.putInts(buffer, this.pathPosition, this.size);
+        SnapshotArena.putInts(buffer, this.ticksSinceLastMove, this.size);
+        SnapshotArena.putInts(buffer, this.pace, this.size);
+        SnapshotArena.putInts(buffer, this.hitPoints, this.size);
+        SnapshotArena.putInts(buffer, this.maxHitPoints, this.size);
+        SnapshotArena.putInts(buffer, this.armorClass, this.size);
+        SnapshotArena.putInts(buffer, this.jitterX, this.size);
+        SnapshotArena.putInts(buffer, this.jitterY, this.size);
+        SnapshotArena.putInts(buffer, this.boundsX, this.size);
+        SnapshotArena.putInts(buffer, this.boundsY, this.size);
+        SnapshotArena.putInts(buffer, this.width, this.size);
+        SnapshotArena.putInts(buffer, this.height, this.size);
+        SnapshotArena.putBooleans(buffer, this.shouldRemove, this.size);
+        SnapshotArena.putBooleans(buffer, this.reachedEnd, this.size);
+    }
+
+    /**
+     * Replaces every enemy with the ones written by writeTo.
+     * The paths of the enemies must already be set.
+     *
+     * @param buffer the snapshot buffer to read from
+     */
+    public void readFrom(ByteBuffer buffer) {
+        int newSize = buffer.getInt();
+        while (this.type.length < newSize) {
+            this.grow();
+        }
+        this.size = newSize;
+        buffer.get(this.type, 0, this.size);
+        SnapshotArena.getInts(buffer, this.pathId, this.size);
+        SnapshotArena.getInts(buffer, this.pathPosition, this.size);
+        SnapshotArena.getInts(buffer, this.ticksSinceLastMove, this.size);
+        SnapshotArena.getInts(buffer, this.pace, this.size);
+        SnapshotArena.getInts(buffer, this.hitPoints, this.size);
+        SnapshotArena.getInts(buffer, this.maxHitPoints, this.size);
+        SnapshotArena.getInts(buffer, this.armorClass, this.size);
+        SnapshotArena.getInts(buffer, this.jitterX, this.size);
+        SnapshotArena.getInts(buffer, this.jitterY, this.size);
+        SnapshotArena.getInts(buffer, this.boundsX, this.size);
+        SnapshotArena.getInts(buffer, this.boundsY, this.size);
+        System.arraycopy(this.boundsX, 0, this.previousBoundsX, 0, this.size);
+        System.arraycopy(this.boundsY, 0, this.previousBoundsY, 0, this.size);
+        SnapshotArena.getInts(buffer, this.width, this.size);
+        SnapshotArena.getInts(buffer, this.height, this.size);
+        SnapshotArena.getBooleans(buffer, this.shouldRemove, this.size);
+        SnapshotArena.getBooleans(buffer, this.reachedEnd, this.size);
+        Arrays.fill(this.isDrawn, 0, this.size, false);
+    }
+
+    /**
+     * Replaces every enemy with a copy of the enemies in another store, keeping the storage for reuse,
+     * e.g. to hand a copy to another thread for drawing. Change tracking is not copied.
+     *
+     * @param other the store to copy
+     */
+    public void copyFrom(EnemyStore other) {
+        while (this.type.length < other.size) {
+            this.grow();
+        }
+        this.size = other.size;
+        System.arraycopy(other.type, 0, this.type, 0, this.size);
+        System.arraycopy(other.pathId, 0, this.pathId, 0, this.size);
+        System.arraycopy(other.pathPosition, 0, this.pathPosition, 0, this.size);
+        System.arraycopy(other.ticksSinceLastMove, 0, this.ticksSinceLastMove, 0, this.size);
+        System.arraycopy(other.pace, 0, this.pace, 0, this.size);
+        System.arraycopy(other.hitPoints, 0, this.hitPoints, 0, this.size);
+        System.arraycopy(other.maxHitPoints, 0, this.maxHitPoints, 0, this.size);
+        System.arraycopy(other.armorClass, 0, this.armorClass, 0, this.size);
+        System.arraycopy(other.jitterX, 0, this.jitterX, 0, this.size);
+        System.arraycopy(other.jitterY, 0, this.jitterY, 0, this.size);
+        System.arraycopy(other.boundsX, 0, this.boundsX, 0, this.size);
+        System.arraycopy(other.boundsY, 0, this.boundsY, 0, this.size);
+        System.arraycopy(other.previousBoundsX, 0, this.previousBoundsX, 0, this.size);
+        System.arraycopy(other.previousBoundsY, 0, this.previousBoundsY, 0, this.size);
+        System.arraycopy(other.width, 0, this.width, 0, this.size);
+        System.arraycopy(other.height, 0, this.height, 0, this.size);
+        System.arraycopy(other.shouldRemove, 0, this.shouldRemove, 0, this.size);
+        System.arraycopy(other.reachedEnd, 0, this.reachedEnd, 0, this.size);
+        // The path cells are never changed once set, so the copy can share them
+        if (this.paths.length < other.paths.length) {
+            this.paths = new Cell[other.paths.length][];
+        }
+        Arrays.fill(this.paths, null);
+        System.arraycopy(other.paths, 0, this.paths, 0, other.paths.length);
+    }
+
+    /**
+     * Removes every enemy, keeping the storage for reuse.
+     */
+    public void clear() {
+        this.size = 0;
+        Arrays.fill(this.paths, null);
+    }
+
+    public EnemyType getType(int i) {
+        return TYPES[this.type[i]];
+    }
+
+    /**
+     * Returns the cell enemy i is currently on, or null if it has no path.
+     *
+     * @param i the enemy index
+     * @return the current cell
+     */
+    public Cell getCell(int i) {
+        if (this.pathId[i] < 0) {
+            return null;
+        }
+        return this.paths[this.pathId[i]][this.pathPosition[i]];
+    }
+
+    /**
+     * Returns the index of enemy i's current cell in its path (0 at the start cell).
+     *
+     * @param i the enemy index
+     * @return the path position
+     */
+    public int getPathPosition(int i) {
+        return this.pathPosition[i];
+    }
+
+    /**
+     * Returns the number of cells in enemy i's path.
+     *
+     * @param i the enemy index
+     * @return the path length, or 0 if the enemy has no path
+     */
+    public int getPathLength(int i) {
+        return this.pathId[i] < 0 ? 0 : this.paths[this.pathId[i]].length;
+    }
+
+    /**
+     * Returns how far along its path enemy i is, from 0.0 at the start cell to 1.0 at the last cell.
+     *
+     * @param i the enemy index
+     * @return the fraction of the path covered so far
+     */
+    public double getPathProgress(int i) {
+        int pathLength = this.getPathLength(i);
+        if (pathLength <= 1) {
+            return 0.0;
+        }
+        return this.pathPosition[i] / (double) (pathLength - 1);
+    }
+
+    public int getHitPoints(int i) {
+        return this.hitPoints[i];
+    }
+
+    public int getMaxHitPoints(int i) {
+        return this.maxHitPoints[i];
+    }
+
+    /**
+     * Returns the left edge of enemy i's bounding box, including jitter.
+     *
+     * @param i the enemy index
+     * @return the x-coordinate of the bounding box
+     */
+    public int getBoundsX(int i) {
+        return this.boundsX[i];
+    }
+
+    /**
+     * Returns the top edge of enemy i's bounding box, including jitter.
+     *
+     * @param i the enemy index
+     * @return the y-coordinate of the bounding box
+     */
+    public int getBoundsY(int i) {
+        return this.boundsY[i];
+    }
+
+    public int getWidth(int i) {
+        return this.width[i];
+    }
+
+    public int getHeight(int i) {
+        return this.height[i];
+    }
+
+    /**
+     * Draws every enemy on the given Graphics2D object.
+     *
+     * @param g2d the Graphics2D object to draw on
+     */
+    public void drawOn(Graphics2D g2d) {
+        this.drawOn(g2d, 1.0);
+    }
+
+    /**
+     * Draws every enemy part of the way from where it was before the most recent tick to where it is now,
+     * so enemies glide between cells when frames are drawn more often than ticks.
+     *
+     * @param g2d the Graphics2D object to draw on
+     * @param alpha how far the next tick is along, from 0 (draw the previous positions) to 1 (the current ones)
+     */
+    public void drawOn(Graphics2D g2d, double alpha) {
+        // Only repainted areas are drawn, so skip enemies outside them, health bar and outlines included
+        Rectangle clip = g2d.getClipBounds();
+        int margin = HEALTH_BAR_HEIGHT + 4;
+        for (int i = 0; i < this.size; i++) {
+            if (this.pathId[i] < 0) {
+                continue;
+            }
+            int x = this.previousBoundsX[i] + (int) Math.round((this.boundsX[i] - this.previousBoundsX[i]) * alpha);
+            int y = this.previousBoundsY[i] + (int) Math.round((this.boundsY[i] - this.previousBoundsY[i]) * alpha);
+            if (clip == null || clip.intersects(x - margin, y - margin, this.width[i] + 2 * margin, this.height[i] + 2 * margin)) {
+                this.drawEnemy(g2d, i, x, y);
+            }
+        }
+    }
+
+    private void drawEnemy(Graphics2D g2d, int i, int x, int y) {
+        int w = this.width[i];
+        int h = this.height[i];
+
+        Sprite sprite = TYPES[this.type[i]].getSprite();
+        if (sprite.isReady()) {
+            sprite.drawOn(g2d, x, y, w, h);
+        } else {
+            // Draw a simple circle for the enemy until its sprite is loaded
+            g2d.setColor(TYPES[this.type[i]].getColor());
+            g2d.fillOval(x, y, w, h);
+            g2d.setColor(Color.BLACK);
+            g2d.drawOval(x, y, w, h);
+        }
+
+        int barX = x;
+        int barY = y - HEALTH_BAR_HEIGHT - 2;
+        if (barY < 0) {
+            barY = y + h + 2;
+        }
+
+        double damageRatio = (this.maxHitPoints[i] - Math.max(0, this.hitPoints[i])) / (double) this.maxHitPoints[i];
+        int dmgWidth = (int) Math.round(w * damageRatio);
+        BufferedImage bar = HEALTH_BARS.computeIfAbsent(w << 16 | dmgWidth, key -> renderHealthBar(w, dmgWidth));
+        g2d.drawImage(bar, barX - 1, barY - 1, null);
+    }
+
+    private static BufferedImage renderHealthBar(int w, int dmgWidth) {
+        BufferedImage bar = SpriteAtlas.createCompatibleImage(w + 2, HEALTH_BAR_HEIGHT + 2);
+        Graphics2D g2d = bar.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.translate(1, 1);
+
+        RoundRectangle2D barBg = new RoundRectangle2D.Float(0, 0, w, HEALTH_BAR_HEIGHT, 6, 6);
+        g2d.setColor(Color.RED);
+        g2d.fill(barBg);
+
+        if (dmgWidth > 0) {
+            RoundRectangle2D dmgRect = new RoundRectangle2D.Float(w - dmgWidth, 0, dmgWidth, HEALTH_BAR_HEIGHT, 6, 6);
+            g2d.setColor(HEALTH_BAR_DAMAGE_COLOR);
+            g2d.fill(dmgRect);
+        }
+
+        g2d.setColor(Color.BLACK);
+        g2d.draw(barBg);
+        g2d.dispose();
+        return bar;
+    }
+}
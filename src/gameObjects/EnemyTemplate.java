@@ -0,0 +1,51 @@
+package gameObjects;
+
+import gameEngine.Cell;
+
+/**
+ * Describes an enemy that a level will send in one of its waves:
+ * its type, its level, and the path it follows.
+ *
+ * Templates are immutable and hold nothing random, so a level can hand out the same templates
+ * every time it is played. EnemyStore.spawn turns a template into a live enemy,
+ * with jitter drawn from the random stream of the game being played.
+ */
+public class EnemyTemplate {
+    private EnemyType type;
+    private int level;
+    private int pathIndex;
+    private Cell[] path;
+
+    public EnemyTemplate(EnemyType type, int level, int pathIndex, Cell[] path) {
+        this.type = type;
+        this.level = level;
+        this.pathIndex = pathIndex;
+        this.path = path;
+    }
+
+    public EnemyType getType() {
+        return this.type;
+    }
+
+    public int getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Returns the index of the path, i.e. the digit on its start cell.
+     *
+     * @return the path index
+     */
+    public int getPathIndex() {
+        return this.pathIndex;
+    }
+
+    /**
+     * Returns the cells of the path, as returned by Level.getPath, or null if the path does not exist.
+     *
+     * @return the path cells
+     */
+    public Cell[] getPath() {
+        return this.path;
+    }
+}
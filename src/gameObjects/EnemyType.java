@@ -0,0 +1,135 @@
+package gameObjects;
+
+import java.awt.Color;
+import java.util.SplittableRandom;
+
+/**
+ * The kinds of enemies, and the characteristics shared by every enemy of a kind.
+ *
+ * Individual enemies live in an EnemyStore, which stores only a type tag per enemy
+ * and looks everything else up here.
+ */
+public enum EnemyType {
+    /**
+     * The basic enemy.
+     */
+    GRUNT("Grunt", Color.PINK, 0, 1.0),
+    /**
+     * A larger, armored enemy. Armor reduces the damage of each projectile
+     * that does not pierce armor.
+     */
+    HEAVY("Heavy", Color.GRAY, 1, 1.5);
+
+    private static final int DEFAULT_SIZE = 20;
+    private static final int DEFAULT_PACE = 20;
+    private static final int DEFAULT_HIT_POINTS_PER_LEVEL = 2;
+
+    private String name;
+    private Color color;
+    private int armorClass;
+    private int width;
+    private int height;
+    private int pace;
+    private int hitPointsPerLevel;
+    /**
+     * The sprite shared by every enemy of this type, requested the first time one is drawn.
+     */
+    private Sprite sprite;
+
+    private EnemyType(String name, Color color, int armorClass, double sizeScale) {
+        this.name = name;
+        this.color = color;
+        this.armorClass = armorClass;
+        this.width = (int) (DEFAULT_SIZE * sizeScale);
+        this.height = (int) (DEFAULT_SIZE * sizeScale);
+        this.pace = DEFAULT_PACE;
+        this.hitPointsPerLevel = DEFAULT_HIT_POINTS_PER_LEVEL;
+    }
+
+    /**
+     * Returns the enemy type with the given name, as used in level files.
+     *
+     * @param name the name of the enemy type, e.g. "Grunt"
+     * @return the enemy type
+     */
+    public static EnemyType fromName(String name) {
+        for (EnemyType type : values()) {
+            if (type.name.equals(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported enemy type: " + name);
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public Color getColor() {
+        return this.color;
+    }
+
+    /**
+     * Returns the sprite of this type, starting to load it on the first call.
+     * Enemies are drawn as colored circles until it is ready.
+     *
+     * @return the sprite, which may not be ready yet
+     */
+    public Sprite getSprite() {
+        if (this.sprite == null) {
+            this.sprite = SpriteAtlas.getSprite(SpriteAtlas.SPRITE_DIRECTORY + this.name.toLowerCase() + ".png");
+        }
+        return this.sprite;
+    }
+
+    public int getArmorClass() {
+        return this.armorClass;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Returns the movement pace, in ticks per cell.
+     *
+     * @return the pace
+     */
+    public int getPace() {
+        return this.pace;
+    }
+
+    /**
+     * Returns the maximum hit points of an enemy of this type at the given level.
+     *
+     * @param level the level of the enemy (1, 2, 3, ...)
+     * @return the maximum hit points
+     */
+    public int getMaxHitPoints(int level) {
+        return this.hitPointsPerLevel * level;
+    }
+
+    /**
+     * Returns the jitter range used to spread enemies out within a cell.
+     * Jitter is drawn from [-getJitterRange() / 2, getJitterRange() / 2).
+     *
+     * @return the jitter range, in pixels
+     */
+    public static int getJitterRange() {
+        return DEFAULT_SIZE;
+    }
+
+    /**
+     * Draws a jitter offset, so enemies aren't stacked on top of each other.
+     *
+     * @param random the random stream of the game being played
+     * @return an offset from [-getJitterRange() / 2, getJitterRange() / 2), in pixels
+     */
+    public static int drawJitter(SplittableRandom random) {
+        return random.nextInt(getJitterRange()) - getJitterRange() / 2;
+    }
+}
@@ -0,0 +1,641 @@
+package gameObjects;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import gameEngine.DirtyRegion;
+import gameEngine.SnapshotArena;
+import gameEngine.TowerDefenseMain;
+
+/**
+ * Stores every projectile in flight as a structure of arrays.
+ *
+ * Projectile i is described by x[i], y[i], dx[i], dy[i], and so on, for i from 0 to size() - 1.
+ * The velocity is computed once when the projectile is fired, so flying is just two additions.
+ * Removed projectiles are compacted away by moving the last live projectile into the freed slot,
+ * and the arrays are only reallocated when the pool needs to grow,
+ * so firing and removing projectiles does not allocate.
+ *
+ * In fixed-point mode, positions and velocities are integers in sub-pixel units
+ * (1 / SUBPIXELS_PER_PIXEL of a pixel), and the velocity is computed with StrictMath,
+ * so projectile paths are bit-identical on every machine and every run.
+ *
+ * If a change region is set, the pool also remembers where every projectile was last drawn.
+ * Projectiles move every tick, so each report covers all of them, where they were and where they are.
+ */
+public class ProjectilePool {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final ProjectileType[] TYPES = ProjectileType.values();
+
+    public static final int SUBPIXEL_BITS = 8;
+    public static final int SUBPIXELS_PER_PIXEL = 1 << SUBPIXEL_BITS;
+
+    private int size;
+    private boolean fixedPoint;
+    /**
+     * The size of the level, in pixels. A projectile that leaves it is removed.
+     */
+    private int boundsWidth;
+    private int boundsHeight;
+
+    private double[] x;
+    private double[] y;
+    private double[] dx;
+    private double[] dy;
+    private double[] launchAngleDegrees;
+    /**
+     * The bounding box position before the most recent call to fly(), or NaN if the projectile has not flown yet.
+     */
+    private double[] previousBoundsX;
+    private double[] previousBoundsY;
+    private int[] damage;
+    private boolean[] isArmorPiercing;
+    private byte[] type;
+    private boolean[] shouldRemove;
+    /**
+     * The position and velocity in sub-pixel units, used instead of x, y, dx, and dy in fixed-point mode.
+     */
+    private int[] fixedX;
+    private int[] fixedY;
+    private int[] fixedDx;
+    private int[] fixedDy;
+    /**
+     * Collects the areas of changed projectiles, in level coordinates, or null if changes are not tracked.
+     */
+    private DirtyRegion changes;
+    /**
+     * The areas of the projectiles when changes were last reported.
+     */
+    private DirtyRegion drawnBounds;
+
+    public ProjectilePool() {
+        this.size = 0;
+        this.fixedPoint = false;
+        this.boundsWidth = TowerDefenseMain.GAME_WINDOW_SIZE.width;
+        this.boundsHeight = TowerDefenseMain.GAME_WINDOW_SIZE.height;
+        this.allocate(INITIAL_CAPACITY);
+        this.changes = null;
+        this.drawnBounds = new DirtyRegion();
+    }
+
+    /**
+     * Sets the size of the level the projectiles fly over. A projectile that leaves it is removed.
+     *
+     * @param width the width of the level, in pixels
+     * @param height the height of the level, in pixels
+     */
+    public void setBounds(int width, int height) {
+        this.boundsWidth = width;
+        this.boundsHeight = height;
+    }
+
+    /**
+     * Switches between floating-point and fixed-point kinematics. 
+     * Only allowed while no projectiles are in flight.
+     *
+     * @param fixedPoint true for integer sub-pixel positions, false for double positions
+     */
+    public void setFixedPoint(boolean fixedPoint) {
+        if (this.size > 0) {
+            throw new IllegalStateException("Cannot change kinematics mode while projectiles are in flight");
+        }
+        this.fixedPoint = fixedPoint;
+    }
+
+    public boolean isFixedPoint() {
+        return this.fixedPoint;
+    }
+
+    /**
+     * Starts or stops reporting the areas of changed projectiles to the given region.
+     *
+     * @param changes the region to add changed areas to, in level coordinates, or null to stop tracking
+     */
+    public void setChangeRegion(DirtyRegion changes) {
+        this.changes = changes;
+        this.drawnBounds.clear();
+    }
+
+    /**
+     * Adds the areas every projectile was drawn in at the last call, and the areas they are in now,
+     * to the change region, so moved and removed projectiles are erased and new positions are drawn.
+     * Does nothing if no change region is set.
+     */
+    public void addChangedBounds() {
+        if (this.changes == null) {
+            return;
+        }
+        this.changes.addAll(this.drawnBounds, 0, 0);
+        this.drawnBounds.clear();
+        for (int i = 0; i < this.size; i++) {
+            // Covers round projectiles centered on their location and bars rotated about their center
+            int reach = Math.max(TYPES[this.type[i]].getBoundsWidth(), TYPES[this.type[i]].getBoundsHeight()) + 2;
+            this.drawnBounds.add(this.getPixelX(i) - reach, this.getPixelY(i) - reach, 2 * reach, 2 * reach);
+        }
+        this.changes.addAll(this.drawnBounds, 0, 0);
+    }
+
+    private void allocate(int capacity) {
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.dx = new double[capacity];
+        this.dy = new double[capacity];
+        this.launchAngleDegrees = new double[capacity];
+        this.previousBoundsX = new double[capacity];
+        this.previousBoundsY = new double[capacity];
+        this.damage = new int[capacity];
+        this.isArmorPiercing = new boolean[capacity];
+        this.type = new byte[capacity];
+        this.shouldRemove = new boolean[capacity];
+        this.fixedX = new int[capacity];
+        this.fixedY = new int[capacity];
+        this.fixedDx = new int[capacity];
+        this.fixedDy = new int[capacity];
+    }
+
+    private void grow() {
+        int capacity = this.x.length * 2;
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.dx = Arrays.copyOf(this.dx, capacity);
+        this.dy = Arrays.copyOf(this.dy, capacity);
+        this.launchAngleDegrees = Arrays.copyOf(this.launchAngleDegrees, capacity);
+        this.previousBoundsX = Arrays.copyOf(this.previousBoundsX, capacity);
+        this.previousBoundsY = Arrays.copyOf(this.previousBoundsY, capacity);
+        this.damage = Arrays.copyOf(this.damage, capacity);
+        this.isArmorPiercing = Arrays.copyOf(this.isArmorPiercing, capacity);
+        this.type = Arrays.copyOf(this.type, capacity);
+        this.shouldRemove = Arrays.copyOf(this.shouldRemove, capacity);
+        this.fixedX = Arrays.copyOf(this.fixedX, capacity);
+        this.fixedY = Arrays.copyOf(this.fixedY, capacity);
+        this.fixedDx = Arrays.copyOf(this.fixedDx, capacity);
+        this.fixedDy = Arrays.copyOf(this.fixedDy, capacity);
+    }
+
+    /**
+     * Returns the number of projectiles in flight.
+     *
+     * @return the number of projectiles
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Writes every projectile, and whether positions are fixed-point, to a snapshot.
+     *
+     * @param buffer the snapshot buffer to write to
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.size);
+        buffer.put(this.fixedPoint ? (byte) 1 : (byte) 0);
+        buffer.put(this.type, 0, this.size);
+        SnapshotArena.putDoubles(buffer, this.x, this.size);
+        SnapshotArena.putDoubles(buffer, this.y, this.size);
+        SnapshotArena.putDoubles(buffer, this.dx, this.size);
+        SnapshotArena.putDoubles(buffer, this.dy, this.size);
+        SnapshotArena.putDoubles(buffer, this.launchAngleDegrees, this.size);
+        SnapshotArena.putDoubles(buffer, this.previousBoundsX, this.size);
+        SnapshotArena.putDoubles(buffer, this.previousBoundsY, this.size);
+        SnapshotArena.putInts(buffer, this.damage, this.size);
+        SnapshotArena.putBooleans(buffer, this.isArmorPiercing, this.size);
+        SnapshotArena.putBooleans(buffer, this.shouldRemove, this.size);
+        SnapshotArena.putInts(buffer, this.fixedX, this.size);
+        SnapshotArena.putInts(buffer, this.fixedY, this.size);
+        SnapshotArena.putInts(buffer, this.fixedDx, this.size);
+        SnapshotArena.putInts(buffer, this.fixedDy, this.size);
+    }
+
+    /**
+     * Replaces every projectile with the ones written by writeTo, restoring the kinematics mode too.
+     *
+     * @param buffer the snapshot buffer to read from
+     */
+    public void readFrom(ByteBuffer buffer) {
+        int newSize = buffer.getInt();
+        while (this.x.length < newSize) {
+            this.grow();
+        }
+        this.size = newSize;
+        this.fixedPoint = buffer.get() != 0;
+        buffer.get(this.type, 0, this.size);
+        SnapshotArena.getDoubles(buffer, this.x, this.size);
+        SnapshotArena.getDoubles(buffer, this.y, this.size);
+        SnapshotArena.getDoubles(buffer, this.dx, this.size);
+        SnapshotArena.getDoubles(buffer, this.dy, this.size);
+        SnapshotArena.getDoubles(buffer, this.launchAngleDegrees, this.size);
+        SnapshotArena.getDoubles(buffer, this.previousBoundsX, this.size);
+        SnapshotArena.getDoubles(buffer, this.previousBoundsY, this.size);
+        SnapshotArena.getInts(buffer, this.damage, this.size);
+        SnapshotArena.getBooleans(buffer, this.isArmorPiercing, this.size);
+        SnapshotArena.getBooleans(buffer, this.shouldRemove, this.size);
+        SnapshotArena.getInts(buffer, this.fixedX, this.size);
+        SnapshotArena.getInts(buffer, this.fixedY, this.size);
+        SnapshotArena.getInts(buffer, this.fixedDx, this.size);
+        SnapshotArena.getInts(buffer, this.fixedDy, this.size);
+    }
+
+    /**
+     * Replaces every projectile with a copy of the projectiles in another pool, keeping the storage for reuse,
+     * e.g. to hand a copy to another thread for drawing. Change tracking is not copied.
+     *
+     * @param other the pool to copy
+     */
+    public void copyFrom(ProjectilePool other) {
+        while (this.x.length < other.size) {
+            this.grow();
+        }
+        this.size = other.size;
+        this.fixedPoint = other.fixedPoint;
+        this.boundsWidth = other.boundsWidth;
+        this.boundsHeight = other.boundsHeight;
+        System.arraycopy(other.type, 0, this.type, 0, this.size);
+        System.arraycopy(other.x, 0, this.x, 0, this.size);
+        System.arraycopy(other.y, 0, this.y, 0, this.size);
+        System.arraycopy(other.dx, 0, this.dx, 0, this.size);
+        System.arraycopy(other.dy, 0, this.dy, 0, this.size);
+        System.arraycopy(other.launchAngleDegrees, 0, this.launchAngleDegrees, 0, this.size);
+        System.arraycopy(other.previousBoundsX, 0, this.previousBoundsX, 0, this.size);
+        System.arraycopy(other.previousBoundsY, 0, this.previousBoundsY, 0, this.size);
+        System.arraycopy(other.damage, 0, this.damage, 0, this.size);
+        System.arraycopy(other.isArmorPiercing, 0, this.isArmorPiercing, 0, this.size);
+        System.arraycopy(other.shouldRemove, 0, this.shouldRemove, 0, this.size);
+        System.arraycopy(other.fixedX, 0, this.fixedX, 0, this.size);
+        System.arraycopy(other.fixedY, 0, this.fixedY, 0, this.size);
+        System.arraycopy(other.fixedDx, 0, this.fixedDx, 0, this.size);
+        System.arraycopy(other.fixedDy, 0, this.fixedDy, 0, this.size);
+    }
+
+    /**
+     * Fires a new projectile.
+     *
+     * @param projectileType the kind of projectile
+     * @param startX the x-coordinate of the launch point
+     * @param startY the y-coordinate of the launch point
+     * @param angleDegrees the launch angle, in degrees
+     * @param towerLevel the level of the firing tower
+     */
+    public void spawn(ProjectileType projectileType, double startX, double startY, double angleDegrees, int towerLevel) {
+        if (this.size == this.x.length) {
+            this.grow();
+        }
+        int i = this.size++;
+        if (this.fixedPoint) {
+            double radians = StrictMath.toRadians(angleDegrees);
+            this.fixedX[i] = (int) StrictMath.round(startX * SUBPIXELS_PER_PIXEL);
+            this.fixedY[i] = (int) StrictMath.round(startY * SUBPIXELS_PER_PIXEL);
+            this.fixedDx[i] = (int) StrictMath.round(StrictMath.cos(radians) * projectileType.getSpeed() * SUBPIXELS_PER_PIXEL);
+            this.fixedDy[i] = (int) StrictMath.round(StrictMath.sin(radians) * projectileType.getSpeed() * SUBPIXELS_PER_PIXEL);
+        } else {
+            this.x[i] = startX;
+            this.y[i] = startY;
+            this.dx[i] = Math.cos(Math.toRadians(angleDegrees)) * projectileType.getSpeed();
+            this.dy[i] = Math.sin(Math.toRadians(angleDegrees)) * projectileType.getSpeed();
+        }
+        this.launchAngleDegrees[i] = angleDegrees;
+        this.previousBoundsX[i] = Double.NaN;
+        this.previousBoundsY[i] = Double.NaN;
+        this.damage[i] = projectileType.getDamage(towerLevel);
+        this.isArmorPiercing[i] = projectileType.isArmorPiercing();
+        this.type[i] = (byte) projectileType.ordinal();
+        this.shouldRemove[i] = false;
+    }
+
+    /**
+     * Moves every projectile forward by one tick,
+     * marking the ones that left the visible window for removal.
+     */
+    public void flyAll() {
+        this.flyRange(0, this.size);
+    }
+
+    /**
+     * Moves projectiles from (inclusive) to to (exclusive) forward by one tick, as flyAll does.
+     * Only touches the given projectiles, so disjoint ranges can be flown on different threads.
+     *
+     * @param from the first projectile index
+     * @param to one past the last projectile index
+     */
+    public void flyRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            this.previousBoundsX[i] = this.getBoundsX(i);
+            this.previousBoundsY[i] = this.getBoundsY(i);
+            if (this.fixedPoint) {
+                this.fixedX[i] += this.fixedDx[i];
+                this.fixedY[i] += this.fixedDy[i];
+            } else {
+                this.x[i] += this.dx[i];
+                this.y[i] += this.dy[i];
+            }
+            if (this.isOutOfBounds(i)) {
+                // Once out of the level a projectile can never hit anything again
+                this.shouldRemove[i] = true;
+            }
+        }
+    }
+
+    private boolean isOutOfBounds(int i) {
+        if (this.fixedPoint) {
+            return this.fixedX[i] < 0
+                || this.fixedX[i] > this.boundsWidth * SUBPIXELS_PER_PIXEL
+                || this.fixedY[i] < 0
+                || this.fixedY[i] > this.boundsHeight * SUBPIXELS_PER_PIXEL;
+        }
+        return this.x[i] < 0
+            || this.x[i] > this.boundsWidth
+            || this.y[i] < 0
+            || this.y[i] > this.boundsHeight;
+    }
+
+    /**
+     * Returns the x-coordinate of projectile i, truncated to whole pixels.
+     *
+     * @param i the projectile index
+     * @return the x-coordinate in pixels
+     */
+    public int getPixelX(int i) {
+        return this.fixedPoint ? this.fixedX[i] >> SUBPIXEL_BITS : (int) this.x[i];
+    }
+
+    /**
+     * Returns the y-coordinate of projectile i, truncated to whole pixels.
+     *
+     * @param i the projectile index
+     * @return the y-coordinate in pixels
+     */
+    public int getPixelY(int i) {
+        return this.fixedPoint ? this.fixedY[i] >> SUBPIXEL_BITS : (int) this.y[i];
+    }
+
+    public ProjectileType getType(int i) {
+        return TYPES[this.type[i]];
+    }
+
+    public int getDamage(int i) {
+        return this.damage[i];
+    }
+
+    public boolean isArmorPiercing(int i) {
+        return this.isArmorPiercing[i];
+    }
+
+    public void markToRemove(int i) {
+        this.shouldRemove[i] = true;
+    }
+
+    /**
+     * Removes every projectile marked for removal.
+     * The last live projectile is moved into each freed slot,
+     * so projectile indices are not stable across calls.
+     */
+    public void removeMarked() {
+        int i = 0;
+        while (i < this.size) {
+            if (this.shouldRemove[i]) {
+                this.moveSlot(this.size - 1, i);
+                this.size--;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void moveSlot(int from, int to) {
+        this.x[to] = this.x[from];
+        this.y[to] = this.y[from];
+        this.dx[to] = this.dx[from];
+        this.dy[to] = this.dy[from];
+        this.launchAngleDegrees[to] = this.launchAngleDegrees[from];
+        this.previousBoundsX[to] = this.previousBoundsX[from];
+        this.previousBoundsY[to] = this.previousBoundsY[from];
+        this.damage[to] = this.damage[from];
+        this.isArmorPiercing[to] = this.isArmorPiercing[from];
+        this.type[to] = this.type[from];
+        this.shouldRemove[to] = this.shouldRemove[from];
+        this.fixedX[to] = this.fixedX[from];
+        this.fixedY[to] = this.fixedY[from];
+        this.fixedDx[to] = this.fixedDx[from];
+        this.fixedDy[to] = this.fixedDy[from];
+    }
+
+    /**
+     * Removes every projectile, keeping the storage for reuse.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Returns the left edge of the bounding box of projectile i.
+     * Bars start at their (truncated) location, round projectiles are centered on it.
+     *
+     * @param i the projectile index
+     * @return the x-coordinate of the bounding box
+     */
+    public double getBoundsX(int i) {
+        ProjectileType projectileType = TYPES[this.type[i]];
+        int pixelX = this.getPixelX(i);
+        return projectileType.isRound() ? pixelX - projectileType.getBoundsWidth() / 2.0 : pixelX;
+    }
+
+    /**
+     * Returns the top edge of the bounding box of projectile i.
+     *
+     * @param i the projectile index
+     * @return the y-coordinate of the bounding box
+     */
+    public double getBoundsY(int i) {
+        ProjectileType projectileType = TYPES[this.type[i]];
+        int pixelY = this.getPixelY(i);
+        return projectileType.isRound() ? pixelY - projectileType.getBoundsHeight() / 2.0 : pixelY;
+    }
+
+    public double getBoundsWidth(int i) {
+        return TYPES[this.type[i]].getBoundsWidth();
+    }
+
+    public double getBoundsHeight(int i) {
+        return TYPES[this.type[i]].getBoundsHeight();
+    }
+
+    private boolean hasFlown(int i) {
+        return !Double.isNaN(this.previousBoundsX[i]);
+    }
+
+    /**
+     * Returns the left edge of the box covering the whole path projectile i traveled during the most recent tick.
+     *
+     * @param i the projectile index
+     * @return the x-coordinate of the swept bounding box
+     */
+    public double getSweptBoundsX(int i) {
+        return this.hasFlown(i) ? Math.min(this.previousBoundsX[i], this.getBoundsX(i)) : this.getBoundsX(i);
+    }
+
+    /**
+     * Returns the top edge of the box covering the whole path projectile i traveled during the most recent tick.
+     *
+     * @param i the projectile index
+     * @return the y-coordinate of the swept bounding box
+     */
+    public double getSweptBoundsY(int i) {
+        return this.hasFlown(i) ? Math.min(this.previousBoundsY[i], this.getBoundsY(i)) : this.getBoundsY(i);
+    }
+
+    public double getSweptBoundsWidth(int i) {
+        return this.getBoundsWidth(i) + (this.hasFlown(i) ? Math.abs(this.getBoundsX(i) - this.previousBoundsX[i]) : 0);
+    }
+
+    public double getSweptBoundsHeight(int i) {
+        return this.getBoundsHeight(i) + (this.hasFlown(i) ? Math.abs(this.getBoundsY(i) - this.previousBoundsY[i]) : 0);
+    }
+
+    /**
+     * Returns true if the bounding boxes of projectile i and the given enemy overlap.
+     * Matches Rectangle2D.intersects, but without allocating either rectangle.
+     *
+     * @param i the projectile index
+     * @param enemies the live enemies
+     * @param e the index of the enemy to test against
+     * @return true if the bounding boxes overlap, false otherwise
+     */
+    public boolean intersects(int i, EnemyStore enemies, int e) {
+        double px = this.getBoundsX(i);
+        double py = this.getBoundsY(i);
+        double w = this.getBoundsWidth(i);
+        double h = this.getBoundsHeight(i);
+        if (w <= 0 || h <= 0 || enemies.getWidth(e) <= 0 || enemies.getHeight(e) <= 0) {
+            return false;
+        }
+        return px + w > enemies.getBoundsX(e)
+            && py + h > enemies.getBoundsY(e)
+            && px < enemies.getBoundsX(e) + enemies.getWidth(e)
+            && py < enemies.getBoundsY(e) + enemies.getHeight(e);
+    }
+
+    /**
+     * Returns true if the bounding box of projectile i overlapped the given enemy
+     * at any point while moving during the most recent tick, false otherwise.
+     *
+     * Unlike intersects, a fast projectile cannot pass through an enemy between two ticks.
+     * For a projectile that has not flown yet, this is the same as intersects.
+     *
+     * @param i the projectile index
+     * @param enemies the live enemies
+     * @param e the index of the enemy to test against
+     * @return true if the swept bounding box overlaps the enemy, false otherwise
+     */
+    public boolean intersectsSwept(int i, EnemyStore enemies, int e) {
+        double w = this.getBoundsWidth(i);
+        double h = this.getBoundsHeight(i);
+        if (w <= 0 || h <= 0 || enemies.getWidth(e) <= 0 || enemies.getHeight(e) <= 0) {
+            return false;
+        }
+        double endX = this.getBoundsX(i);
+        double endY = this.getBoundsY(i);
+        double startX = this.hasFlown(i) ? this.previousBoundsX[i] : endX;
+        double startY = this.hasFlown(i) ? this.previousBoundsY[i] : endY;
+
+        // The boxes overlap while the projectile's corner is strictly inside the enemy box grown by the projectile size.
+        // On each axis, find the open interval of times t (0 = start of tick, 1 = end of tick) for which that holds.
+        double minX = enemies.getBoundsX(e) - w;
+        double maxX = enemies.getBoundsX(e) + enemies.getWidth(e);
+        double minY = enemies.getBoundsY(e) - h;
+        double maxY = enemies.getBoundsY(e) + enemies.getHeight(e);
+        double enter = Double.NEGATIVE_INFINITY;
+        double exit = Double.POSITIVE_INFINITY;
+
+        double deltaX = endX - startX;
+        if (deltaX == 0) {
+            if (startX <= minX || startX >= maxX) {
+                return false;
+            }
+        } else {
+            double t1 = (minX - startX) / deltaX;
+            double t2 = (maxX - startX) / deltaX;
+            enter = Math.min(t1, t2);
+            exit = Math.max(t1, t2);
+        }
+
+        double deltaY = endY - startY;
+        if (deltaY == 0) {
+            if (startY <= minY || startY >= maxY) {
+                return false;
+            }
+        } else {
+            double t1 = (minY - startY) / deltaY;
+            double t2 = (maxY - startY) / deltaY;
+            enter = Math.max(enter, Math.min(t1, t2));
+            exit = Math.min(exit, Math.max(t1, t2));
+        }
+
+        return enter < exit && enter < 1 && exit > 0;
+    }
+
+    /**
+     * Draws every projectile on the given Graphics2D object.
+     *
+     * @param g2d the Graphics2D object to draw on
+     */
+    public void drawOn(Graphics2D g2d) {
+        this.drawOn(g2d, 1.0);
+    }
+
+    /**
+     * Draws every projectile part of the way from where it was before the most recent tick to where it is now,
+     * so projectiles fly smoothly when frames are drawn more often than ticks.
+     *
+     * @param g2d the Graphics2D object to draw on
+     * @param alpha how far the next tick is along, from 0 (draw the previous positions) to 1 (the current ones)
+     */
+    public void drawOn(Graphics2D g2d, double alpha) {
+        // Only repainted areas are drawn, so skip projectiles outside them
+        Rectangle clip = g2d.getClipBounds();
+        for (int i = 0; i < this.size; i++) {
+            double boundsX = this.getBoundsX(i);
+            double boundsY = this.getBoundsY(i);
+            if (this.hasFlown(i) && alpha < 1.0) {
+                boundsX = this.previousBoundsX[i] + (boundsX - this.previousBoundsX[i]) * alpha;
+                boundsY = this.previousBoundsY[i] + (boundsY - this.previousBoundsY[i]) * alpha;
+            }
+            // Covers the outline, and bars rotated about their center
+            int reach = Math.max(TYPES[this.type[i]].getBoundsWidth(), TYPES[this.type[i]].getBoundsHeight()) + 2;
+            if (clip == null || clip.intersects(boundsX - reach, boundsY - reach, 3 * reach, 3 * reach)) {
+                this.drawProjectile(g2d, i, boundsX, boundsY);
+            }
+        }
+    }
+
+    private void drawProjectile(Graphics2D g2d, int i, double boundsX, double boundsY) {
+        ProjectileType projectileType = TYPES[this.type[i]];
+
+        if (projectileType.isRound()) {
+            // Draw a filled circle centered on the location
+            Ellipse2D circle = new Ellipse2D.Double(boundsX, boundsY,
+                    projectileType.getBoundsWidth(),
+                    projectileType.getBoundsHeight());
+            g2d.setColor(projectileType.getColor());
+            g2d.fill(circle);
+            // Add black outline
+            g2d.setColor(Color.BLACK);
+            g2d.draw(circle);
+            return;
+        }
+
+        // Draw a simple rectangle for the projectile, rotated by launchAngle
+        Rectangle2D rect = new Rectangle2D.Double(boundsX, boundsY, projectileType.getBoundsHeight(), projectileType.getBoundsWidth());
+        Graphics2D g2 = (Graphics2D) g2d.create();
+        g2.rotate(Math.toRadians(this.launchAngleDegrees[i]), rect.getCenterX(), rect.getCenterY());
+        g2.setColor(projectileType.getColor());
+        g2.fill(rect);
+        // Add black outline
+        g2.setColor(Color.BLACK);
+        g2.draw(rect);
+        g2.dispose();
+    }
+}
@@ -0,0 +1,90 @@
+package gameObjects;
+
+import java.awt.Color;
+
+/**
+ * The kinds of projectiles towers can fire, and the characteristics shared by every projectile of a kind.
+ *
+ * Individual projectiles live in a ProjectilePool, which stores only a type tag per projectile
+ * and looks everything else up here.
+ */
+public enum ProjectileType {
+    /**
+     * Fired by archer towers.
+     */
+    ARROW(Color.LIGHT_GRAY, 1, false, 3, 10, false),
+    /**
+     * Fired by missile towers. Missiles pierce armor.
+     */
+    MISSILE(new Color(128, 0, 0), 3, true, 3, 10, false),
+    /**
+     * Fired by cannons. Cannon balls are round and centered on their location.
+     */
+    CANNON_BALL(Color.DARK_GRAY, 5, false, 8, 8, true);
+
+    private static final double DEFAULT_SPEED = 10;
+
+    private Color color;
+    private int damagePerLevel;
+    private boolean isArmorPiercing;
+    private double speed;
+    private int boundsWidth;
+    private int boundsHeight;
+    private boolean isRound;
+
+    private ProjectileType(Color color, int damagePerLevel, boolean isArmorPiercing,
+            int boundsWidth, int boundsHeight, boolean isRound) {
+        this.color = color;
+        this.damagePerLevel = damagePerLevel;
+        this.isArmorPiercing = isArmorPiercing;
+        this.speed = DEFAULT_SPEED;
+        this.boundsWidth = boundsWidth;
+        this.boundsHeight = boundsHeight;
+        this.isRound = isRound;
+    }
+
+    public Color getColor() {
+        return this.color;
+    }
+
+    /**
+     * Returns the damage dealt by a projectile of this type fired by a tower of the given level.
+     *
+     * @param towerLevel the level of the firing tower (1, 2, 3, ...)
+     * @return the damage points
+     */
+    public int getDamage(int towerLevel) {
+        return this.damagePerLevel * towerLevel;
+    }
+
+    public boolean isArmorPiercing() {
+        return this.isArmorPiercing;
+    }
+
+    /**
+     * Returns the speed of the projectile, in pixels per tick.
+     *
+     * @return the speed
+     */
+    public double getSpeed() {
+        return this.speed;
+    }
+
+    public int getBoundsWidth() {
+        return this.boundsWidth;
+    }
+
+    public int getBoundsHeight() {
+        return this.boundsHeight;
+    }
+
+    /**
+     * Returns true if the projectile is drawn as a circle centered on its location,
+     * false if it is drawn as a bar starting at its location and rotated to its launch angle.
+     *
+     * @return true if the projectile is round, false otherwise
+     */
+    public boolean isRound() {
+        return this.isRound;
+    }
+}
@@ -0,0 +1,105 @@
+package gameObjects;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * A reference to an image in a SpriteAtlas page, shared by every object drawn with that image.
+ *
+ * A sprite is handed out before its image has loaded. Until isReady() is true,
+ * objects keep drawing their fallback shapes; if the image fails to load, the sprite never becomes ready.
+ */
+public class Sprite {
+    private String filename;
+    /**
+     * The atlas page holding the image, or null until the image has loaded.
+     * Written once by the loader thread, so the region fields are set before it is published.
+     */
+    private volatile BufferedImage page;
+    private int pageX;
+    private int pageY;
+    private int width;
+    private int height;
+    private volatile boolean failed;
+
+    Sprite(String filename) {
+        this.filename = filename;
+        this.page = null;
+        this.failed = false;
+    }
+
+    public String getFilename() {
+        return this.filename;
+    }
+
+    /**
+     * Returns true once the image has loaded and can be drawn.
+     *
+     * @return true if the sprite can be drawn
+     */
+    public boolean isReady() {
+        return this.page != null;
+    }
+
+    /**
+     * Returns true if the image could not be loaded, so the sprite will never be ready.
+     *
+     * @return true if loading failed
+     */
+    public boolean hasFailed() {
+        return this.failed;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Draws the sprite at its own size with its top left corner at the given position.
+     * Does nothing if the sprite is not ready.
+     *
+     * @param g2d the Graphics2D object to draw on
+     * @param x the left edge, in pixels
+     * @param y the top edge, in pixels
+     */
+    public void drawOn(Graphics2D g2d, int x, int y) {
+        this.drawOn(g2d, x, y, this.width, this.height);
+    }
+
+    /**
+     * Draws the sprite scaled to the given box. Does nothing if the sprite is not ready.
+     *
+     * @param g2d the Graphics2D object to draw on
+     * @param x the left edge of the box, in pixels
+     * @param y the top edge of the box, in pixels
+     * @param width the width of the box, in pixels
+     * @param height the height of the box, in pixels
+     */
+    public void drawOn(Graphics2D g2d, int x, int y, int width, int height) {
+        BufferedImage image = this.page;
+        if (image == null) {
+            return;
+        }
+        g2d.drawImage(image, x, y, x + width, y + height,
+                this.pageX, this.pageY, this.pageX + this.width, this.pageY + this.height, null);
+    }
+
+    /**
+     * Points the sprite at its region of an atlas page, making it ready.
+     */
+    void setRegion(BufferedImage page, int pageX, int pageY, int width, int height) {
+        this.pageX = pageX;
+        this.pageY = pageY;
+        this.width = width;
+        this.height = height;
+        this.page = page;
+    }
+
+    void markFailed() {
+        this.failed = true;
+    }
+}
@@ -0,0 +1,154 @@
+package gameObjects;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Loads sprites in the background and packs them into a few large images (atlas pages)
+ * in the format of the screen, so drawing a sprite is a fast copy from a shared page.
+ *
+ * There is one Sprite per image file, however many objects are drawn with it.
+ * getSprite returns immediately; the image is read, converted, and packed on a background thread,
+ * and objects draw their fallback shapes until it is ready.
+ * A file that cannot be read is reported once, and its sprite never becomes ready.
+ *
+ * Pages are filled shelf by shelf: sprites are placed left to right along the current shelf,
+ * and a new shelf starts below the tallest sprite of the previous one when a sprite does not fit.
+ */
+public class SpriteAtlas {
+    /**
+     * The directory of the sprite images of towers and enemies, named after their type, e.g. archer.png.
+     */
+    public static final String SPRITE_DIRECTORY = "resources/images/";
+    private static final int PAGE_SIZE = 1024;
+    /**
+     * Space between sprites, so scaled sprites do not bleed into their neighbors.
+     */
+    private static final int PADDING = 1;
+
+    private static final ConcurrentHashMap<String, Sprite> sprites = new ConcurrentHashMap<String, Sprite>();
+    private static final CopyOnWriteArrayList<Runnable> loadListeners = new CopyOnWriteArrayList<Runnable>();
+
+    /**
+     * Loads one sprite at a time, on a daemon thread so it never keeps the game running.
+     * Only this thread touches the pages and the shelf position below.
+     */
+    private static final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Sprite loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static BufferedImage currentPage = null;
+    private static int shelfX = 0;
+    private static int shelfY = 0;
+    private static int shelfHeight = 0;
+
+    private SpriteAtlas() {
+    }
+
+    /**
+     * Returns the sprite for the given image file, starting to load it if this is the first request.
+     *
+     * @param filename the image file
+     * @return the sprite, which may not be ready yet
+     */
+    public static Sprite getSprite(String filename) {
+        return sprites.computeIfAbsent(filename, key -> {
+            Sprite sprite = new Sprite(key);
+            loader.execute(() -> load(sprite));
+            return sprite;
+        });
+    }
+
+    /**
+     * Registers an action to run (on the loader thread) whenever a sprite becomes ready, e.g. a repaint.
+     *
+     * @param listener the action to run
+     */
+    public static void addLoadListener(Runnable listener) {
+        loadListeners.add(listener);
+    }
+
+    private static void load(Sprite sprite) {
+        File file = new File(sprite.getFilename());
+        if (!file.isFile()) {
+            // Types without an image are drawn as shapes; only images that exist but cannot be read are errors
+            sprite.markFailed();
+            return;
+        }
+        BufferedImage image;
+        try {
+            image = ImageIO.read(file);
+            if (image == null) {
+                throw new IOException("unsupported image format");
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to load sprite " + sprite.getFilename() + ": " + e.getMessage()
+                    + "; drawing shapes instead");
+            sprite.markFailed();
+            return;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage page;
+        int x;
+        int y;
+        if (width + PADDING > PAGE_SIZE || height + PADDING > PAGE_SIZE) {
+            // Too large to share a page
+            page = createCompatibleImage(width, height);
+            x = 0;
+            y = 0;
+        } else {
+            if (currentPage != null && shelfX + width + PADDING > PAGE_SIZE) {
+                shelfX = 0;
+                shelfY += shelfHeight;
+                shelfHeight = 0;
+            }
+            if (currentPage == null || shelfY + height + PADDING > PAGE_SIZE) {
+                currentPage = createCompatibleImage(PAGE_SIZE, PAGE_SIZE);
+                shelfX = 0;
+                shelfY = 0;
+                shelfHeight = 0;
+            }
+            page = currentPage;
+            x = shelfX;
+            y = shelfY;
+            shelfX += width + PADDING;
+            shelfHeight = Math.max(shelfHeight, height + PADDING);
+        }
+
+        Graphics2D g2d = page.createGraphics();
+        g2d.drawImage(image, x, y, null);
+        g2d.dispose();
+        sprite.setRegion(page, x, y, width, height);
+
+        for (Runnable listener : loadListeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Creates a transparent image in the screen's own pixel format, or a plain ARGB image without a screen.
+     */
+    static BufferedImage createCompatibleImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+        return configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+    }
+}
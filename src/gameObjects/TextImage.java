@@ -0,0 +1,107 @@
+package gameObjects;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.image.BufferedImage;
+
+/**
+ * A piece of text rasterized once into an image, so drawing it is a single image copy
+ * with no string building, layout, or glyph rendering.
+ *
+ * Callers keep a TextImage for as long as its text stays the same, e.g. until a tower is upgraded
+ * or the budget changes, and only then make a new one.
+ * The text is rasterized at the scale of the screen, so it stays sharp on high-DPI screens;
+ * callers also make a new one if getDeviceScale no longer matches getScale, e.g. after the window moves screens.
+ */
+public class TextImage {
+    /**
+     * Room around the text for antialiased edges.
+     */
+    private static final int PADDING = 1;
+    /**
+     * Antialiased text with whole-pixel advances, as painted by the game component.
+     */
+    private static final FontRenderContext RENDER_CONTEXT = new FontRenderContext(null, true, false);
+
+    private Font font;
+    private double scale;
+    private BufferedImage image;
+    private int width;
+    private int height;
+    private int ascent;
+
+    /**
+     * Rasterizes the given text at the given scale.
+     *
+     * @param text the text
+     * @param font the font to draw it in
+     * @param color the color to draw it in
+     * @param scale the number of image pixels per drawn pixel, usually getDeviceScale of the Graphics2D it is drawn on
+     */
+    public TextImage(String text, Font font, Color color, double scale) {
+        this.font = font;
+        this.scale = scale;
+        LineMetrics metrics = font.getLineMetrics(text, RENDER_CONTEXT);
+        this.width = (int) Math.ceil(font.getStringBounds(text, RENDER_CONTEXT).getWidth());
+        this.ascent = (int) Math.ceil(metrics.getAscent());
+        this.height = this.ascent + (int) Math.ceil(metrics.getDescent());
+
+        this.image = SpriteAtlas.createCompatibleImage((int) Math.ceil((this.width + 2 * PADDING) * scale),
+                (int) Math.ceil((this.height + 2 * PADDING) * scale));
+        Graphics2D g2d = this.image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2d.scale(scale, scale);
+        g2d.setFont(font);
+        g2d.setColor(color);
+        g2d.drawString(text, PADDING, PADDING + this.ascent);
+        g2d.dispose();
+    }
+
+    /**
+     * Returns the number of device pixels per drawn pixel on the screen the given graphics draw to,
+     * e.g. 2 on a high-DPI screen scaled to 200%.
+     *
+     * @param g2d the Graphics2D object to draw on
+     * @return the scale of the screen
+     */
+    public static double getDeviceScale(Graphics2D g2d) {
+        return g2d.getDeviceConfiguration().getDefaultTransform().getScaleX();
+    }
+
+    public Font getFont() {
+        return this.font;
+    }
+
+    public double getScale() {
+        return this.scale;
+    }
+
+    /**
+     * Returns the advance width of the text, as FontMetrics.stringWidth would.
+     *
+     * @return the width, in pixels
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    public int getAscent() {
+        return this.ascent;
+    }
+
+    /**
+     * Draws the text with its baseline starting at the given point, as Graphics2D.drawString would.
+     *
+     * @param g2d the Graphics2D object to draw on
+     * @param x the left end of the baseline
+     * @param y the baseline
+     */
+    public void drawOn(Graphics2D g2d, int x, int y) {
+        g2d.drawImage(this.image, x - PADDING, y - this.ascent - PADDING,
+                this.width + 2 * PADDING, this.height + 2 * PADDING, null);
+    }
+}
@@ -3,7 +3,10 @@ package gameObjects;
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
 
+import gameEngine.AssetRegistry;
 import gameEngine.Cell;
 
 /**
@@ -17,9 +20,15 @@ public abstract class Tower extends DrawableObject {
     private static final int DEFAULT_COST_TO_BUILD = 1;
     private static final int DEFAULT_COST_TO_UPGRADE = 1;
     private static final int DEFAULT_FIRE_RATE = 8;
-    private static final double DEFAULT_LAUNCH_ANGLE_DEGREES = 180.0;
+    public static final double DEFAULT_LAUNCH_ANGLE_DEGREES = 180.0;
 
     private static final Color DEFAULT_COLOR = new Color(120, 80, 50);
+    private static final float LEVEL_FONT_SIZE = 10;
+    /**
+     * The "Lvl. N" label of each tower level, rasterized the first time a tower of that level is drawn 
+     * and shared by every tower of that level, until the labels are drawn at another scale. 
+     */
+    private static final ConcurrentHashMap<Integer, TextImage> LEVEL_LABELS = new ConcurrentHashMap<Integer, TextImage>();
 
     /**
      * The level of the tower. 
@@ -96,27 +105,100 @@ public abstract class Tower extends DrawableObject {
     }
 
     /**
-     * Returns a new projectile if the tower is ready to fire, 
-     * or null otherwise. 
+     * Fires a new projectile into the given pool if the tower is ready to fire. 
      * 
-     * @return
+     * @param projectiles the pool of projectiles in flight
+     * @return true if the tower fired, false otherwise
+     */
+    public boolean updateState(ProjectilePool projectiles) {
+        if (!this.countDown()) {
+            return false;
+        }
+        this.fire(projectiles);
+        return true;
+    }
+
+    /**
+     * Counts down one tick towards the next shot, 
+     * restarting the count when the tower is ready to fire. 
+     * Only touches this tower, so different towers can count down on different threads. 
+     * 
+     * @return true if the tower should fire during this tick, false otherwise
      */
-    public Projectile updateState() {
+    public boolean countDown() {
         this.ticksRemaining--;
         if (this.ticksRemaining > 0) {
-            return null;
+            return false;
         }
         this.ticksRemaining = this.fireRate;
-        return this.createProjectile();
+        return true;
     }
 
     /**
-     * Returns a new projectile fired by the tower.
-     * The characteristics of the projectile depend on the tower type and level.
+     * Fires a new projectile into the given pool from the center of the tower's cell. 
      * 
-     * @return the new projectile
+     * @param projectiles the pool of projectiles in flight
      */
-    protected abstract Projectile createProjectile();
+    public void fire(ProjectilePool projectiles) {
+        projectiles.spawn(this.getProjectileType(),
+                this.cell.getPixelX() + Cell.SQUARE_SIZE / 2.0,
+                this.cell.getPixelY() + Cell.SQUARE_SIZE / 2.0,
+                this.launchAngleDegrees,
+                this.level);
+    }
+
+    /**
+     * Returns the name of the tower type, as used by GameState.constructNewTower. 
+     * 
+     * @return "Archer", "Missile", or "Cannon"
+     */
+    public abstract String getTypeName();
+
+    /**
+     * Writes the state that changes during a game (level, upgrade cost, countdown, and angle) to a snapshot. 
+     * The type and cell are written by the caller. 
+     * 
+     * @param buffer the snapshot buffer to write to
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.level);
+        buffer.putInt(this.costToUpgrade);
+        buffer.putInt(this.ticksRemaining);
+        buffer.putDouble(this.launchAngleDegrees);
+    }
+
+    /**
+     * Reads back the state written by writeTo. 
+     * 
+     * @param buffer the snapshot buffer to read from
+     */
+    public void readFrom(ByteBuffer buffer) {
+        this.level = buffer.getInt();
+        this.costToUpgrade = buffer.getInt();
+        this.ticksRemaining = buffer.getInt();
+        this.launchAngleDegrees = buffer.getDouble();
+    }
+
+    /**
+     * Copies the state that changes during a game (level, upgrade cost, countdown, and angle) from another tower, 
+     * e.g. to hand a copy to another thread for drawing. The type and cell are not copied. 
+     * 
+     * @param other the tower to copy
+     */
+    public void copyFrom(Tower other) {
+        this.level = other.level;
+        this.costToUpgrade = other.costToUpgrade;
+        this.ticksRemaining = other.ticksRemaining;
+        this.launchAngleDegrees = other.launchAngleDegrees;
+    }
+
+    /**
+     * Returns the type of projectile fired by the tower.
+     * The damage of each projectile also depends on the tower level.
+     * 
+     * @return the projectile type
+     */
+    protected abstract ProjectileType getProjectileType();
 
     /**
      * Upgrades the tower to the next level, 
@@ -170,6 +252,11 @@ public abstract class Tower extends DrawableObject {
         return this.cell;
     }
 
+    @Override
+    protected String getSpriteFilename() {
+        return SpriteAtlas.SPRITE_DIRECTORY + this.getTypeName().toLowerCase() + ".png";
+    }
+
     @Override
     public void drawFallbackShape(Graphics2D g2d) {
         // Draw a filled circle to represent the tower
@@ -185,18 +272,16 @@ public abstract class Tower extends DrawableObject {
     }
 
     private void drawLevel(Graphics2D g2d) {
-        Graphics2D g2 = (Graphics2D) g2d.create();
-        // decrease font size
-        g2.setFont(g2.getFont().deriveFont(10.0f));
-        String levelStr = "Lvl. " + this.level;
-        FontMetrics fm = g2.getFontMetrics();
-        int strWidth = fm.stringWidth(levelStr);
-        int strHeight = fm.getAscent();
+        double scale = TextImage.getDeviceScale(g2d);
+        TextImage label = LEVEL_LABELS.get(this.level);
+        if (label == null || label.getScale() != scale) {
+            label = new TextImage("Lvl. " + this.level, AssetRegistry.getGameFont(LEVEL_FONT_SIZE), Color.BLACK, scale);
+            LEVEL_LABELS.put(this.level, label);
+        }
         int padding = 2;
-        int xPos = this.getX() + Cell.SQUARE_SIZE - strWidth - padding;
-        int yPos = this.getY() + strHeight + 2 * padding;
-        g2.setColor(Color.BLACK);
-        g2.drawString(levelStr, xPos, yPos);
+        int xPos = this.getX() + Cell.SQUARE_SIZE - label.getWidth() - padding;
+        int yPos = this.getY() + label.getAscent() + 2 * padding;
+        label.drawOn(g2d, xPos, yPos);
     }
 
     /**
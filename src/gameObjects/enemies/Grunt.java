@@ -1,16 +0,0 @@
-package gameObjects.enemies;
-
-import gameObjects.Enemy;
-import gameObjects.Projectile;
-
-import java.awt.*;
-
-import gameEngine.Cell;
-
-public class Grunt extends Enemy {
-
-    public Grunt(Cell startCell, int level) {
-        super(startCell, level);
-    }
-
-}
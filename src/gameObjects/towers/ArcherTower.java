@@ -1,10 +1,7 @@
 package gameObjects.towers;
 
-import gameObjects.Projectile;
+import gameObjects.ProjectileType;
 import gameObjects.Tower;
-import gameObjects.projectiles.Arrow;
-
-import java.awt.geom.Point2D;
 
 import gameEngine.Cell;
 
@@ -15,8 +12,12 @@ public class ArcherTower extends Tower {
     }
 
     @Override
-    protected Projectile createProjectile() {
-        Point2D center = new Point2D.Double(this.getCell().getPixelX() + Cell.SQUARE_SIZE / 2, this.getCell().getPixelY() + Cell.SQUARE_SIZE / 2);
-        return new Arrow(center, this.getLaunchAngleDegrees(), this.getLevel());
+    public String getTypeName() {
+        return "Archer";
+    }
+
+    @Override
+    protected ProjectileType getProjectileType() {
+        return ProjectileType.ARROW;
     }
 }
@@ -1,11 +1,9 @@
 package gameObjects.towers;
 
-import gameObjects.Projectile;
+import gameObjects.ProjectileType;
 import gameObjects.Tower;
-import gameObjects.projectiles.Missile;
 
 import java.awt.*;
-import java.awt.geom.Point2D;
 
 import gameEngine.Cell;
 
@@ -22,10 +20,13 @@ public class MissileTower extends Tower {
     }
 
     @Override
-    protected Projectile createProjectile() {
-        Point2D center = new Point2D.Double(this.getCell().getPixelX() + Cell.SQUARE_SIZE / 2.0,
-                this.getCell().getPixelY() + Cell.SQUARE_SIZE / 2.0);
-        return new Missile(center, this.getLaunchAngleDegrees(), this.getLevel());
+    public String getTypeName() {
+        return "Missile";
+    }
+
+    @Override
+    protected ProjectileType getProjectileType() {
+        return ProjectileType.MISSILE;
     }
 
     @Override
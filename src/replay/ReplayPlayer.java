@@ -0,0 +1,372 @@
+package replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import gameEngine.Cell;
+import gameEngine.GameState;
+import gameEngine.GameStateListener;
+import gameEngine.Level;
+import gameEngine.LevelPack;
+
+/**
+ * Plays back a replay written by ReplayRecorder, without any window or timer.
+ *
+ * The player can run the whole log as fast as the CPU allows, or seek to any tick:
+ * it restores the last keyframe at or before that tick and replays only the inputs
+ * and ticks after it, so a seek costs at most one keyframe interval of ticks.
+ * Seeking forward within the same keyframe interval just keeps playing.
+ */
+public class ReplayPlayer implements GameStateListener {
+    private ByteBuffer log;
+    /**
+     * The pack the recorded game loaded its levels from, or null if it loaded each level from its own file.
+     */
+    private LevelPack pack;
+    private String firstLevelFile;
+    private int firstLevelNumber;
+    private boolean sweptCollisions;
+    private boolean fixedPointKinematics;
+    private int keyframeInterval;
+    private long lastTick;
+
+    private long[] keyframeTicks;
+    private int[] keyframeOffsets;
+    private int numKeyframes;
+
+    /**
+     * The levels loaded so far, by level number, so seeking between levels does not re-parse them.
+     */
+    private HashMap<Integer, Level> levels;
+    private GameState gameState;
+    /**
+     * The offset of the next record to apply.
+     */
+    private int position;
+
+    /**
+     * Loads a replay and restores the game to its first keyframe.
+     *
+     * @param filename the replay file
+     * @throws IOException if the file cannot be read or is not a replay
+     */
+    public ReplayPlayer(String filename) throws IOException {
+        this.log = ByteBuffer.wrap(Files.readAllBytes(Paths.get(filename)));
+        if (this.log.remaining() < 2 * Integer.BYTES || this.log.getInt() != ReplayRecorder.MAGIC) {
+            throw new IOException(filename + " is not a replay file");
+        }
+        int version = this.log.getInt();
+        if (version != ReplayRecorder.VERSION) {
+            throw new IOException("Unsupported replay version " + version + " in " + filename);
+        }
+        String packFile = readUTF(this.log);
+        this.firstLevelNumber = this.log.getInt();
+        this.firstLevelFile = readUTF(this.log);
+        this.log.getLong(); // The random seed is also part of every keyframe
+        this.sweptCollisions = this.log.get() != 0;
+        this.fixedPointKinematics = this.log.get() != 0;
+        this.keyframeInterval = this.log.getInt();
+        int firstRecord = this.log.position();
+
+        this.levels = new HashMap<Integer, Level>();
+        Level firstLevel;
+        if (packFile.isEmpty()) {
+            this.pack = null;
+            firstLevel = new Level(this.firstLevelFile);
+        } else {
+            this.pack = new LevelPack(packFile);
+            firstLevel = this.pack.getLevel(this.firstLevelNumber);
+            if (firstLevel == null) {
+                throw new IOException(packFile + " does not hold level " + this.firstLevelNumber + " of " + filename);
+            }
+        }
+        this.levels.put(this.firstLevelNumber, firstLevel);
+
+        if (!this.readIndex()) {
+            this.scanRecords(firstRecord);
+        }
+        if (this.numKeyframes == 0) {
+            throw new IOException(filename + " has no keyframes");
+        }
+
+        this.gameState = new GameState(firstLevel, this);
+        this.gameState.setSweptCollisions(this.sweptCollisions);
+        this.gameState.setFixedPointKinematics(this.fixedPointKinematics);
+        this.restoreKeyframe(0);
+    }
+
+    public GameState getGameState() {
+        return this.gameState;
+    }
+
+    /**
+     * Returns the last tick of the recorded game.
+     *
+     * @return the last tick
+     */
+    public long getLastTick() {
+        return this.lastTick;
+    }
+
+    public int getKeyframeInterval() {
+        return this.keyframeInterval;
+    }
+
+    /**
+     * Moves the game to the given tick, after every input recorded at that tick.
+     *
+     * @param tick the tick to seek to, from the first keyframe's tick to getLastTick()
+     */
+    public void seek(long tick) {
+        int keyframe = this.findKeyframe(tick);
+        long currentTick = this.gameState.getTick();
+        // Keep playing if we are already past the keyframe and not past the target
+        boolean canContinue = currentTick <= tick && currentTick >= this.keyframeTicks[keyframe];
+        if (!canContinue) {
+            this.restoreKeyframe(keyframe);
+        }
+        this.playUntil(tick);
+    }
+
+    /**
+     * Plays the rest of the log.
+     */
+    public void playToEnd() {
+        this.playUntil(this.lastTick);
+    }
+
+    /**
+     * Applies every record up to and including the given tick, ticking the game in between.
+     */
+    private void playUntil(long targetTick) {
+        while (this.position < this.log.limit()) {
+            byte kind = this.log.get(this.position);
+            long recordTick = this.log.getLong(this.position + 1);
+            if (kind == ReplayRecorder.END || recordTick > targetTick) {
+                break;
+            }
+            this.tickUntil(recordTick);
+            this.position = this.applyRecord(this.position);
+        }
+        this.tickUntil(Math.min(targetTick, this.lastTick));
+    }
+
+    private void tickUntil(long tick) {
+        while (this.gameState.getTick() < tick) {
+            this.gameState.updateState();
+        }
+    }
+
+    /**
+     * Applies the record at the given offset and returns the offset of the next record.
+     */
+    private int applyRecord(int offset) {
+        this.log.position(offset);
+        byte kind = this.log.get();
+        this.log.getLong();
+        switch (kind) {
+        case ReplayRecorder.SELECT_TOWER_TYPE:
+            String towerType = readUTF(this.log);
+            this.gameState.setSelectedTowerType(towerType.isEmpty() ? null : towerType);
+            break;
+        case ReplayRecorder.PLACE_OR_ROTATE_TOWER:
+            Cell cell = new Cell(this.log.getInt(), this.log.getInt());
+            this.gameState.placeOrRotateTower(cell, this.log.get() != 0);
+            break;
+        case ReplayRecorder.UPGRADE_TOWER:
+            this.gameState.upgradeSelectedTower();
+            break;
+        case ReplayRecorder.START_WAVE:
+            this.gameState.startWave();
+            break;
+        case ReplayRecorder.END_WAVE:
+            this.gameState.endWave();
+            break;
+        case ReplayRecorder.ADVANCE_LEVEL:
+            this.gameState.advanceLevel();
+            break;
+        case ReplayRecorder.KEYFRAME:
+            // Playing through a keyframe reaches the same state it holds
+            int length = this.log.getInt();
+            this.log.position(this.log.position() + length);
+            break;
+        default:
+            throw new IllegalStateException("Corrupt replay: unknown record kind " + kind + " at offset " + offset);
+        }
+        return this.log.position();
+    }
+
+    private void restoreKeyframe(int keyframe) {
+        int offset = this.keyframeOffsets[keyframe];
+        int length = this.log.getInt(offset + 1 + Long.BYTES);
+        ByteBuffer snapshot = this.log.slice(offset + 1 + Long.BYTES + Integer.BYTES, length);
+
+        // Every snapshot starts with its level number
+        int levelNumber = snapshot.getInt(0);
+        if (this.gameState.getCurrentLevel() == null || this.gameState.getCurrentLevel().getLevelNumber() != levelNumber) {
+            this.gameState.loadLevel(this.getLevel(levelNumber));
+        }
+        this.gameState.readFrom(snapshot);
+        this.position = offset + 1 + Long.BYTES + Integer.BYTES + length;
+    }
+
+    private Level getLevel(int levelNumber) {
+        Level level = this.levels.get(levelNumber);
+        if (level == null) {
+            level = this.pack == null ? new Level(Level.getFilename(levelNumber)) : this.pack.getLevel(levelNumber);
+            this.levels.put(levelNumber, level);
+        }
+        return level;
+    }
+
+    /**
+     * Returns the last keyframe at or before the given tick, or the first keyframe if there is none.
+     */
+    private int findKeyframe(long tick) {
+        int index = Arrays.binarySearch(this.keyframeTicks, 0, this.numKeyframes, tick);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        // Several keyframes can share a tick (e.g. one when recording started); use the last one
+        while (index + 1 < this.numKeyframes && this.keyframeTicks[index + 1] == tick) {
+            index++;
+        }
+        return Math.max(0, index);
+    }
+
+    /**
+     * Reads the keyframe index written when the recorder was closed.
+     *
+     * @return true if the index was found, false if the log was not closed properly
+     */
+    private boolean readIndex() {
+        int limit = this.log.limit();
+        if (limit < 2 * Integer.BYTES || this.log.getInt(limit - Integer.BYTES) != ReplayRecorder.INDEX_MAGIC) {
+            return false;
+        }
+        int indexOffset = this.log.getInt(limit - 2 * Integer.BYTES);
+        this.lastTick = this.log.getLong(indexOffset - Long.BYTES);
+        this.log.limit(indexOffset);
+
+        ByteBuffer index = this.log.duplicate();
+        index.limit(limit);
+        index.position(indexOffset);
+        this.numKeyframes = index.getInt();
+        this.keyframeTicks = new long[this.numKeyframes];
+        this.keyframeOffsets = new int[this.numKeyframes];
+        for (int i = 0; i < this.numKeyframes; i++) {
+            this.keyframeTicks[i] = index.getLong();
+            this.keyframeOffsets[i] = index.getInt();
+        }
+        return true;
+    }
+
+    /**
+     * Rebuilds the keyframe index by reading every record, for logs whose recorder was never closed.
+     * A record cut off at the end of the file is dropped.
+     */
+    private void scanRecords(int firstRecord) {
+        this.keyframeTicks = new long[16];
+        this.keyframeOffsets = new int[16];
+        this.numKeyframes = 0;
+        this.lastTick = 0;
+
+        int offset = firstRecord;
+        int lastComplete = firstRecord;
+        try {
+            while (offset < this.log.limit()) {
+                this.log.position(offset);
+                byte kind = this.log.get();
+                long tick = this.log.getLong();
+                if (kind == ReplayRecorder.KEYFRAME) {
+                    int length = this.log.getInt();
+                    if (this.log.remaining() < length) {
+                        break;
+                    }
+                    this.log.position(this.log.position() + length);
+                    if (this.numKeyframes == this.keyframeTicks.length) {
+                        this.keyframeTicks = Arrays.copyOf(this.keyframeTicks, this.numKeyframes * 2);
+                        this.keyframeOffsets = Arrays.copyOf(this.keyframeOffsets, this.numKeyframes * 2);
+                    }
+                    this.keyframeTicks[this.numKeyframes] = tick;
+                    this.keyframeOffsets[this.numKeyframes] = offset;
+                    this.numKeyframes++;
+                } else if (kind == ReplayRecorder.SELECT_TOWER_TYPE) {
+                    readUTF(this.log);
+                } else if (kind == ReplayRecorder.PLACE_OR_ROTATE_TOWER) {
+                    this.log.position(this.log.position() + 2 * Integer.BYTES + 1);
+                }
+                // The ticks in between records were played whether or not they were recorded
+                this.lastTick = Math.max(this.lastTick, tick);
+                offset = this.log.position();
+                lastComplete = offset;
+                if (kind == ReplayRecorder.END) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            // The file ends in the middle of a record
+        }
+        this.log.limit(lastComplete);
+    }
+
+    private static String readUTF(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        // writeUTF uses modified UTF-8, which matches UTF-8 for the names stored here
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void invalidAction(String message) {
+        // The recorded game rejected the same input
+    }
+
+    @Override
+    public void levelCompleted(GameState gameState) {
+        // The recorded game's next level is an ADVANCE_LEVEL record of its own
+    }
+
+    @Override
+    public void gameOver(GameState gameState) {
+        // The log ends here too
+    }
+
+    /**
+     * Plays a replay headless and prints the state of the game at the end, or at the given tick.
+     *
+     * Usage: ReplayPlayer replayFile [tick]
+     *
+     * @param args the replay file, then optionally the tick to seek to
+     * @throws IOException if the replay cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ReplayPlayer replayFile [tick]");
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        ReplayPlayer player = new ReplayPlayer(args[0]);
+        if (args.length == 2) {
+            player.seek(Long.parseLong(args[1]));
+        } else {
+            player.playToEnd();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        GameState gameState = player.getGameState();
+        System.out.printf("Tick %d of %d: level %d, wave %d of %d, budget %d, lives %d, kills %d, leaks %d%n",
+                gameState.getTick(), player.getLastTick(), gameState.getCurrentLevel().getLevelNumber(),
+                gameState.getCurrentWaveNumber(), gameState.getTotalWaves(), gameState.getBudgetRemaining(),
+                gameState.getLivesRemaining(), gameState.getEnemiesKilled(), gameState.getEnemiesLeaked());
+        System.out.printf("Played in %.3f s%n", seconds);
+    }
+}
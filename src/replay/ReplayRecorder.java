@@ -0,0 +1,219 @@
+package replay;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import gameEngine.Cell;
+import gameEngine.GameInputListener;
+import gameEngine.GameState;
+import gameEngine.Level;
+
+/**
+ * Records a game as a compact binary log of player inputs, each tagged with its tick,
+ * plus a full snapshot of the game state (a keyframe) every few hundred ticks.
+ *
+ * The log is laid out as:
+ * - a header: magic number, version, level pack file (empty if the levels were loaded from their own files),
+ *   first level number, first level file, random seed, collision mode, kinematics mode, keyframe interval
+ * - records, each a kind byte and a tick, followed by the data of that kind of record
+ * - an END record with the last tick
+ * - an index of every keyframe's tick and file offset, then the offset of that index and a magic number
+ *
+ * Recording can start at any point in a game, since the first keyframe is taken when recording starts.
+ * Games recorded to be played back on another machine should use fixed-point kinematics,
+ * so projectiles fly the same paths there.
+ * If the game exits without closing the recorder, the index is missing,
+ * and ReplayPlayer rebuilds it by scanning the records.
+ */
+public class ReplayRecorder implements GameInputListener, Closeable {
+    static final int MAGIC = 0x54445250; // "TDRP"
+    static final int INDEX_MAGIC = 0x54444958; // "TDIX"
+    static final int VERSION = 4;
+
+    static final byte SELECT_TOWER_TYPE = 1;
+    static final byte PLACE_OR_ROTATE_TOWER = 2;
+    static final byte UPGRADE_TOWER = 3;
+    static final byte START_WAVE = 4;
+    static final byte END_WAVE = 5;
+    static final byte ADVANCE_LEVEL = 6;
+    static final byte KEYFRAME = 7;
+    static final byte END = 8;
+
+    /**
+     * About one minute of play at 10 ticks per second.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 600;
+    private static final int INITIAL_KEYFRAME_CAPACITY = 16;
+    private static final int INITIAL_SNAPSHOT_BYTES = 16 * 1024;
+
+    private DataOutputStream out;
+    private int keyframeInterval;
+    private ByteBuffer snapshotBuffer;
+    private long[] keyframeTicks;
+    private int[] keyframeOffsets;
+    private int numKeyframes;
+    private long lastTick;
+    private boolean closed;
+
+    /**
+     * Starts recording the given game into the given file, replacing any existing file.
+     *
+     * @param filename the file to write the replay to
+     * @param gameState the game to record; the recorder becomes its input listener
+     * @param keyframeInterval the number of ticks between keyframes
+     * @throws IOException if the file cannot be written
+     */
+    public ReplayRecorder(String filename, GameState gameState, int keyframeInterval) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive, got " + keyframeInterval);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
+        this.keyframeInterval = keyframeInterval;
+        this.snapshotBuffer = ByteBuffer.allocate(INITIAL_SNAPSHOT_BYTES);
+        this.keyframeTicks = new long[INITIAL_KEYFRAME_CAPACITY];
+        this.keyframeOffsets = new int[INITIAL_KEYFRAME_CAPACITY];
+        this.numKeyframes = 0;
+        this.lastTick = gameState.getTick();
+        this.closed = false;
+
+        this.out.writeInt(MAGIC);
+        this.out.writeInt(VERSION);
+        Level level = gameState.getCurrentLevel();
+        this.out.writeUTF(level.getPack() == null ? "" : level.getPack().getPackFilename());
+        this.out.writeInt(level.getLevelNumber());
+        this.out.writeUTF(level.getFilename());
+        this.out.writeLong(gameState.getRandomSeed());
+        this.out.writeBoolean(gameState.isSweptCollisions());
+        this.out.writeBoolean(gameState.isFixedPointKinematics());
+        this.out.writeInt(keyframeInterval);
+        this.writeKeyframe(gameState);
+
+        gameState.setInputListener(this);
+    }
+
+    @Override
+    public void towerTypeSelected(GameState gameState, String towerType) {
+        try {
+            this.writeRecordStart(SELECT_TOWER_TYPE, gameState);
+            this.out.writeUTF(towerType == null ? "" : towerType);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void towerPlacedOrRotated(GameState gameState, Cell cell, boolean isLeftClick) {
+        try {
+            this.writeRecordStart(PLACE_OR_ROTATE_TOWER, gameState);
+            this.out.writeInt(cell.getRow());
+            this.out.writeInt(cell.getColumn());
+            this.out.writeBoolean(isLeftClick);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void towerUpgraded(GameState gameState) {
+        this.writeRecord(UPGRADE_TOWER, gameState);
+    }
+
+    @Override
+    public void waveStarted(GameState gameState) {
+        this.writeRecord(START_WAVE, gameState);
+    }
+
+    @Override
+    public void waveEnded(GameState gameState) {
+        this.writeRecord(END_WAVE, gameState);
+    }
+
+    @Override
+    public void levelAdvanced(GameState gameState) {
+        this.writeRecord(ADVANCE_LEVEL, gameState);
+    }
+
+    @Override
+    public void ticked(GameState gameState) {
+        this.lastTick = gameState.getTick();
+        if (gameState.getTick() % this.keyframeInterval == 0) {
+            try {
+                this.writeKeyframe(gameState);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the END record and the keyframe index, and closes the file.
+     * Closing twice has no effect.
+     * Must be called on the thread that runs the game, once it no longer reports inputs to this recorder,
+     * since records written after the index would make the replay unreadable.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.out.writeByte(END);
+        this.out.writeLong(this.lastTick);
+
+        int indexOffset = this.out.size();
+        this.out.writeInt(this.numKeyframes);
+        for (int i = 0; i < this.numKeyframes; i++) {
+            this.out.writeLong(this.keyframeTicks[i]);
+            this.out.writeInt(this.keyframeOffsets[i]);
+        }
+        this.out.writeInt(indexOffset);
+        this.out.writeInt(INDEX_MAGIC);
+        this.out.close();
+    }
+
+    private void writeRecord(byte kind, GameState gameState) {
+        try {
+            this.writeRecordStart(kind, gameState);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeRecordStart(byte kind, GameState gameState) throws IOException {
+        this.out.writeByte(kind);
+        this.out.writeLong(gameState.getTick());
+    }
+
+    private void writeKeyframe(GameState gameState) throws IOException {
+        while (true) {
+            this.snapshotBuffer.clear();
+            try {
+                gameState.writeTo(this.snapshotBuffer);
+                break;
+            } catch (BufferOverflowException e) {
+                this.snapshotBuffer = ByteBuffer.allocate(this.snapshotBuffer.capacity() * 2);
+            }
+        }
+
+        if (this.numKeyframes == this.keyframeTicks.length) {
+            this.keyframeTicks = Arrays.copyOf(this.keyframeTicks, this.numKeyframes * 2);
+            this.keyframeOffsets = Arrays.copyOf(this.keyframeOffsets, this.numKeyframes * 2);
+        }
+        this.keyframeTicks[this.numKeyframes] = gameState.getTick();
+        this.keyframeOffsets[this.numKeyframes] = this.out.size();
+        this.numKeyframes++;
+
+        this.writeRecordStart(KEYFRAME, gameState);
+        this.out.writeInt(this.snapshotBuffer.position());
+        this.out.write(this.snapshotBuffer.array(), 0, this.snapshotBuffer.position());
+        // Keyframes are where a player can resume, so make sure they reach the file
+        this.out.flush();
+    }
+}
@@ -0,0 +1,149 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The aggregated outcome of a batch of simulations:
+ * the win rate, the lives remaining, and the leaks per wave over every run.
+ * The individual results are kept in the same order as the jobs.
+ */
+public class BatchResult {
+    private List<SimulationResult> results;
+    private int wins;
+    private long totalLivesRemaining;
+    private int minLivesRemaining;
+    private int maxLivesRemaining;
+    /**
+     * The total number of leaks in each wave over every run that played that wave.
+     */
+    private long[] leaksPerWave;
+    /**
+     * The number of runs that played each wave.
+     */
+    private int[] runsPerWave;
+
+    /**
+     * Aggregates the given results.
+     *
+     * @param results the results, in job order
+     */
+    public BatchResult(List<SimulationResult> results) {
+        this.results = new ArrayList<SimulationResult>(results);
+
+        int maxWaves = 0;
+        for (SimulationResult result : results) {
+            maxWaves = Math.max(maxWaves, result.getWavesPlayed());
+        }
+        this.leaksPerWave = new long[maxWaves];
+        this.runsPerWave = new int[maxWaves];
+        this.minLivesRemaining = results.isEmpty() ? 0 : Integer.MAX_VALUE;
+        this.maxLivesRemaining = 0;
+
+        for (SimulationResult result : results) {
+            if (result.isWin()) {
+                this.wins++;
+            }
+            this.totalLivesRemaining += result.getLivesRemaining();
+            this.minLivesRemaining = Math.min(this.minLivesRemaining, result.getLivesRemaining());
+            this.maxLivesRemaining = Math.max(this.maxLivesRemaining, result.getLivesRemaining());
+            for (int wave = 1; wave <= result.getWavesPlayed(); wave++) {
+                this.leaksPerWave[wave - 1] += result.getLeaksInWave(wave);
+                this.runsPerWave[wave - 1]++;
+            }
+        }
+    }
+
+    public int getNumRuns() {
+        return this.results.size();
+    }
+
+    /**
+     * Returns the result of one run.
+     *
+     * @param i the index of the job in the batch
+     * @return the result of that job
+     */
+    public SimulationResult getResult(int i) {
+        return this.results.get(i);
+    }
+
+    public int getWins() {
+        return this.wins;
+    }
+
+    /**
+     * Returns the fraction of runs that were won.
+     *
+     * @return the win rate, from 0 to 1
+     */
+    public double getWinRate() {
+        return this.results.isEmpty() ? 0 : (double) this.wins / this.results.size();
+    }
+
+    public double getMeanLivesRemaining() {
+        return this.results.isEmpty() ? 0 : (double) this.totalLivesRemaining / this.results.size();
+    }
+
+    public int getMinLivesRemaining() {
+        return this.minLivesRemaining;
+    }
+
+    public int getMaxLivesRemaining() {
+        return this.maxLivesRemaining;
+    }
+
+    /**
+     * Returns the number of waves played by the longest run.
+     *
+     * @return the number of waves with leak statistics
+     */
+    public int getWavesPlayed() {
+        return this.leaksPerWave.length;
+    }
+
+    /**
+     * Returns the total leaks in the given wave over every run that played it.
+     *
+     * @param waveNumber the wave number (1, 2, 3, ...)
+     * @return the total leaks in that wave
+     */
+    public long getTotalLeaksInWave(int waveNumber) {
+        return this.leaksPerWave[waveNumber - 1];
+    }
+
+    /**
+     * Returns the number of runs that played the given wave,
+     * i.e. that were not already lost before it.
+     *
+     * @param waveNumber the wave number (1, 2, 3, ...)
+     * @return the number of runs reaching that wave
+     */
+    public int getRunsReachingWave(int waveNumber) {
+        return this.runsPerWave[waveNumber - 1];
+    }
+
+    /**
+     * Returns the mean leaks in the given wave over the runs that played it.
+     *
+     * @param waveNumber the wave number (1, 2, 3, ...)
+     * @return the mean leaks in that wave
+     */
+    public double getMeanLeaksInWave(int waveNumber) {
+        int runs = this.runsPerWave[waveNumber - 1];
+        return runs == 0 ? 0 : (double) this.leaksPerWave[waveNumber - 1] / runs;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d runs: %d wins (%.1f%%), lives remaining mean %.2f, min %d, max %d",
+                this.getNumRuns(), this.wins, this.getWinRate() * 100,
+                this.getMeanLivesRemaining(), this.minLivesRemaining, this.maxLivesRemaining));
+        for (int wave = 1; wave <= this.getWavesPlayed(); wave++) {
+            sb.append(String.format("%n  Wave %d: reached by %d runs, %.2f leaks on average",
+                    wave, this.getRunsReachingWave(wave), this.getMeanLeaksInWave(wave)));
+        }
+        return sb.toString();
+    }
+}
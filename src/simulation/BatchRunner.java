@@ -0,0 +1,169 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import gameEngine.Level;
+
+/**
+ * Runs a batch of independent headless simulations across all cores
+ * and aggregates their outcomes.
+ *
+ * Each thread parses each level file once and replays it with one reused GameState,
+ * restarting the level for every job, and shares nothing with the other threads,
+ * so throughput grows with the number of threads. Every run uses fixed-point kinematics
+ * and the job's seed, so a job produces the same result no matter which thread runs it,
+ * and results are reported in job order.
+ */
+public class BatchRunner {
+    private int numThreads;
+    private boolean sweptCollisions;
+    /**
+     * The simulation of each level file run on each thread so far, by level file.
+     */
+    private ThreadLocal<HashMap<String, HeadlessSimulation>> simulations;
+
+    /**
+     * Constructs a batch runner using one thread per available core.
+     */
+    public BatchRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a batch runner using the given number of threads.
+     *
+     * @param numThreads the number of simulations to run at once
+     */
+    public BatchRunner(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Batch runner needs at least one thread, got " + numThreads);
+        }
+        this.numThreads = numThreads;
+        this.sweptCollisions = false;
+        this.simulations = ThreadLocal.withInitial(HashMap::new);
+    }
+
+    /**
+     * Turns swept (continuous) projectile collisions on or off for every run.
+     *
+     * @param sweptCollisions true to test the path each projectile traveled during a tick
+     */
+    public void setSweptCollisions(boolean sweptCollisions) {
+        this.sweptCollisions = sweptCollisions;
+    }
+
+    /**
+     * Runs every job and aggregates the results.
+     *
+     * @param jobs the jobs to run
+     * @return the aggregated results, with individual results in job order
+     * @throws IllegalArgumentException if a job's tower layout is rejected
+     */
+    public BatchResult run(List<SimulationJob> jobs) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.numThreads, Math.max(1, jobs.size())));
+        try {
+            ArrayList<Future<SimulationResult>> futures = new ArrayList<Future<SimulationResult>>(jobs.size());
+            for (SimulationJob job : jobs) {
+                futures.add(executor.submit(() -> this.runJob(job)));
+            }
+
+            ArrayList<SimulationResult> results = new ArrayList<SimulationResult>(jobs.size());
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(this.await(futures.get(i), jobs.get(i)));
+            }
+            return new BatchResult(results);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs a single job on the calling thread,
+     * reusing the level and game state of earlier jobs on the same level file and thread.
+     *
+     * @param job the job to run
+     * @return the outcome of the job
+     */
+    public SimulationResult runJob(SimulationJob job) {
+        HeadlessSimulation simulation = this.simulations.get().computeIfAbsent(job.getLevelFile(),
+                levelFile -> new HeadlessSimulation(new Level(levelFile), job.getTowerLayout()));
+        simulation.setTowerLayout(job.getTowerLayout());
+        simulation.setSweptCollisions(this.sweptCollisions);
+        simulation.setFixedPointKinematics(true);
+        simulation.setRandomSeed(job.getSeed());
+        return simulation.run();
+    }
+
+    private SimulationResult await(Future<SimulationResult> future, SimulationJob job) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running " + job, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to run " + job, e.getCause());
+        }
+    }
+
+    /**
+     * Runs one level and tower layout with many seeds and prints the aggregated outcome.
+     *
+     * Usage: BatchRunner [--runs=N] [--first-seed=S] [--threads=T] [--swept] levelFile [Type:row:col[:rotationSteps[:upgrades]] ...]
+     *
+     * @param args the options, then the level file, then the tower placements
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int numRuns = 1000;
+        long firstSeed = 0;
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        boolean sweptCollisions = false;
+        int firstArg = 0;
+        while (firstArg < args.length && args[firstArg].startsWith("--")) {
+            if (args[firstArg].startsWith("--runs=")) {
+                numRuns = Integer.parseInt(args[firstArg].substring("--runs=".length()));
+            } else if (args[firstArg].startsWith("--first-seed=")) {
+                firstSeed = Long.parseLong(args[firstArg].substring("--first-seed=".length()));
+            } else if (args[firstArg].startsWith("--threads=")) {
+                numThreads = Integer.parseInt(args[firstArg].substring("--threads=".length()));
+            } else if (args[firstArg].equals("--swept")) {
+                sweptCollisions = true;
+            } else {
+                System.err.println("Unknown option: " + args[firstArg]);
+                System.exit(1);
+            }
+            firstArg++;
+        }
+        if (args.length <= firstArg) {
+            System.err.println("Usage: BatchRunner [--runs=N] [--first-seed=S] [--threads=T] [--swept] levelFile [Type:row:col[:rotationSteps[:upgrades]] ...]");
+            System.exit(1);
+        }
+
+        ArrayList<TowerPlacement> towerLayout = new ArrayList<TowerPlacement>();
+        for (int i = firstArg + 1; i < args.length; i++) {
+            towerLayout.add(TowerPlacement.parse(args[i]));
+        }
+        ArrayList<SimulationJob> jobs = new ArrayList<SimulationJob>(numRuns);
+        for (int i = 0; i < numRuns; i++) {
+            jobs.add(new SimulationJob(args[firstArg], towerLayout, firstSeed + i));
+        }
+
+        long start = System.nanoTime();
+        BatchRunner runner = new BatchRunner(numThreads);
+        runner.setSweptCollisions(sweptCollisions);
+        BatchResult result = runner.run(jobs);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(result);
+        System.out.printf("%d runs on %d threads in %.3f s (%.0f runs/s)%n", numRuns, numThreads, seconds, numRuns / seconds);
+    }
+}
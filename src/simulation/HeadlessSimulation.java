@@ -0,0 +1,267 @@
+package simulation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import gameEngine.GameState;
+import gameEngine.GameStateListener;
+import gameEngine.Level;
+import gameEngine.LevelPack;
+
+/**
+ * Plays one level with a fixed tower layout, without any window or timer.
+ *
+ * Each wave is started immediately after the previous one ends,
+ * and the game state is ticked as fast as the CPU allows until
+ * the wave is cleared or the player runs out of lives.
+ *
+ * A simulation keeps its GameState between runs: each run restarts the level
+ * and replays it with the current tower layout, without re-parsing the level file
+ * or reallocating the entity pools.
+ */
+public class HeadlessSimulation implements GameStateListener {
+    /**
+     * Safety limit so a level whose path never ends cannot run forever.
+     */
+    private static final int DEFAULT_MAX_TICKS_PER_WAVE = 1_000_000;
+
+    private Level level;
+    private List<TowerPlacement> towerLayout;
+    private int maxTicksPerWave;
+    private boolean sweptCollisions;
+    private boolean fixedPointKinematics;
+    /**
+     * The random seed for enemy jitter, or null to use an unseeded stream.
+     */
+    private Long randomSeed;
+    /**
+     * The pool to run each tick on, or null to tick on the calling thread.
+     */
+    private ForkJoinPool tickPool;
+    /**
+     * Runs stop early once they have lost more than this many lives.
+     */
+    private int maxLivesLost;
+    private GameState gameState;
+
+    /**
+     * Constructs a simulation of the given level with the given tower layout.
+     * Every run plays the level from its first wave.
+     *
+     * @param level the level to play
+     * @param towerLayout the towers to place before the first wave
+     */
+    public HeadlessSimulation(Level level, List<TowerPlacement> towerLayout) {
+        this.level = level;
+        this.towerLayout = towerLayout;
+        this.maxTicksPerWave = DEFAULT_MAX_TICKS_PER_WAVE;
+        this.sweptCollisions = false;
+        this.fixedPointKinematics = false;
+        this.randomSeed = null;
+        this.tickPool = null;
+        this.maxLivesLost = Integer.MAX_VALUE;
+        this.gameState = null;
+    }
+
+    /**
+     * Replaces the towers placed before the first wave of later runs.
+     *
+     * @param towerLayout the towers to place
+     */
+    public void setTowerLayout(List<TowerPlacement> towerLayout) {
+        this.towerLayout = towerLayout;
+    }
+
+    public void setMaxTicksPerWave(int maxTicksPerWave) {
+        this.maxTicksPerWave = maxTicksPerWave;
+    }
+
+    /**
+     * Turns swept (continuous) projectile collisions on or off.
+     *
+     * @param sweptCollisions true to test the path each projectile traveled during a tick
+     * @see GameState#setSweptCollisions(boolean)
+     */
+    public void setSweptCollisions(boolean sweptCollisions) {
+        this.sweptCollisions = sweptCollisions;
+    }
+
+    /**
+     * Turns fixed-point projectile kinematics on or off.
+     *
+     * @param fixedPointKinematics true for integer sub-pixel projectile positions
+     * @see GameState#setFixedPointKinematics(boolean)
+     */
+    public void setFixedPointKinematics(boolean fixedPointKinematics) {
+        this.fixedPointKinematics = fixedPointKinematics;
+    }
+
+    /**
+     * Seeds enemy jitter so the run is reproducible.
+     *
+     * @param seed the random seed
+     * @see GameState#setRandomSeed(long)
+     */
+    public void setRandomSeed(long seed) {
+        this.randomSeed = seed;
+    }
+
+    /**
+     * Runs the phases of each tick across the threads of the given pool.
+     *
+     * @param tickPool the pool to run on, or null to tick on the calling thread
+     * @see GameState#setParallelism(ForkJoinPool)
+     */
+    public void setTickPool(ForkJoinPool tickPool) {
+        this.tickPool = tickPool;
+    }
+
+    /**
+     * Stops each run as soon as it has lost more than the given number of lives.
+     * Such a run is reported as cut off, which lets a search discard
+     * hopeless layouts without playing every wave.
+     *
+     * @param maxLivesLost the number of lives a run may lose before it is stopped
+     */
+    public void setMaxLivesLost(int maxLivesLost) {
+        this.maxLivesLost = maxLivesLost;
+    }
+
+    /**
+     * Places the towers and plays every wave of the level.
+     *
+     * @return the outcome of the level
+     */
+    public SimulationResult run() {
+        if (this.gameState == null) {
+            this.gameState = new GameState(this.level, this);
+        }
+        GameState gameState = this.gameState;
+        gameState.restartLevel();
+        gameState.setSweptCollisions(this.sweptCollisions);
+        gameState.setFixedPointKinematics(this.fixedPointKinematics);
+        if (this.randomSeed != null) {
+            gameState.setRandomSeed(this.randomSeed);
+        }
+        gameState.setParallelism(this.tickPool);
+        for (TowerPlacement placement : this.towerLayout) {
+            placement.applyTo(gameState);
+        }
+
+        SimulationResult result = new SimulationResult(this.level.getLevelNumber(), gameState.getTotalWaves());
+        int minLivesRemaining = this.maxLivesLost == Integer.MAX_VALUE
+                ? Integer.MIN_VALUE : gameState.getLivesRemaining() - this.maxLivesLost;
+        while (gameState.getCurrentWaveNumber() < gameState.getTotalWaves() && !gameState.isGameOver()) {
+            int killsBefore = gameState.getEnemiesKilled();
+            int leaksBefore = gameState.getEnemiesLeaked();
+
+            gameState.startWave();
+            while (gameState.isActiveWave() && !gameState.isGameOver()
+                    && gameState.getLivesRemaining() >= minLivesRemaining
+                    && gameState.getTicksThisWave() < this.maxTicksPerWave) {
+                gameState.updateState();
+            }
+
+            result.recordWave(gameState.getTicksThisWave(),
+                    gameState.getEnemiesLeaked() - leaksBefore,
+                    gameState.getEnemiesKilled() - killsBefore);
+            if (gameState.getLivesRemaining() < minLivesRemaining) {
+                result.markCutOff();
+                break;
+            }
+            if (gameState.isGameOver()) {
+                break;
+            }
+            gameState.endWave();
+        }
+        result.setLivesRemaining(Math.max(0, gameState.getLivesRemaining()));
+        return result;
+    }
+
+    @Override
+    public void invalidAction(String message) {
+        throw new IllegalArgumentException("Tower layout rejected: " + message);
+    }
+
+    @Override
+    public void levelCompleted(GameState gameState) {
+        // A headless run covers a single level; the caller decides what to play next.
+    }
+
+    @Override
+    public void gameOver(GameState gameState) {
+        // Checked by run() after every tick.
+    }
+
+    /**
+     * Runs a single level from the command line and prints the outcome.
+     *
+     * Usage: HeadlessSimulation [--swept] [--fixed-point] [--parallel] [--seed=N] [--pack=FILE] levelFile|levelNumber [Type:row:col[:rotationSteps[:upgrades]] ...]
+     *
+     * @param args the options, then the level file (or level number in the pack), then the tower placements
+     * @throws IOException if the level pack cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        boolean sweptCollisions = false;
+        boolean fixedPointKinematics = false;
+        boolean parallel = false;
+        Long randomSeed = null;
+        String packFile = null;
+        int firstArg = 0;
+        while (firstArg < args.length && args[firstArg].startsWith("--")) {
+            if (args[firstArg].equals("--swept")) {
+                sweptCollisions = true;
+            } else if (args[firstArg].equals("--fixed-point")) {
+                fixedPointKinematics = true;
+            } else if (args[firstArg].equals("--parallel")) {
+                parallel = true;
+            } else if (args[firstArg].startsWith("--seed=")) {
+                randomSeed = Long.parseLong(args[firstArg].substring("--seed=".length()));
+            } else if (args[firstArg].startsWith("--pack=")) {
+                packFile = args[firstArg].substring("--pack=".length());
+            } else {
+                System.err.println("Unknown option: " + args[firstArg]);
+                System.exit(1);
+            }
+            firstArg++;
+        }
+        if (args.length <= firstArg) {
+            System.err.println("Usage: HeadlessSimulation [--swept] [--fixed-point] [--parallel] [--seed=N] [--pack=FILE] levelFile|levelNumber [Type:row:col[:rotationSteps[:upgrades]] ...]");
+            System.exit(1);
+        }
+
+        ArrayList<TowerPlacement> towerLayout = new ArrayList<TowerPlacement>();
+        for (int i = firstArg + 1; i < args.length; i++) {
+            towerLayout.add(TowerPlacement.parse(args[i]));
+        }
+
+        long start = System.nanoTime();
+        Level level;
+        if (packFile == null) {
+            level = new Level(args[firstArg]);
+        } else {
+            level = new LevelPack(packFile).getLevel(Integer.parseInt(args[firstArg]));
+            if (level == null) {
+                System.err.println("No level " + args[firstArg] + " in " + packFile);
+                System.exit(1);
+            }
+        }
+        HeadlessSimulation simulation = new HeadlessSimulation(level, towerLayout);
+        simulation.setSweptCollisions(sweptCollisions);
+        simulation.setFixedPointKinematics(fixedPointKinematics);
+        if (randomSeed != null) {
+            simulation.setRandomSeed(randomSeed);
+        }
+        if (parallel) {
+            simulation.setTickPool(ForkJoinPool.commonPool());
+        }
+        SimulationResult result = simulation.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(result);
+        System.out.printf("%d ticks in %.3f s (%.0f ticks/s)%n", result.getTotalTicks(), seconds, result.getTotalTicks() / seconds);
+    }
+}
@@ -0,0 +1,99 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The best tower layout found by a TowerOptimizer, with how it did and how much searching it took.
+ */
+public class OptimizerResult {
+    private List<TowerPlacement> towerLayout;
+    private int cost;
+    private int numSeeds;
+    private int wins;
+    private int totalLeaks;
+    private int totalKills;
+    private int layoutsEvaluated;
+    private long simulationsRun;
+
+    public OptimizerResult(List<TowerPlacement> towerLayout, int cost, int numSeeds, int wins, int totalLeaks,
+            int totalKills, int layoutsEvaluated, long simulationsRun) {
+        this.towerLayout = new ArrayList<TowerPlacement>(towerLayout);
+        this.cost = cost;
+        this.numSeeds = numSeeds;
+        this.wins = wins;
+        this.totalLeaks = totalLeaks;
+        this.totalKills = totalKills;
+        this.layoutsEvaluated = layoutsEvaluated;
+        this.simulationsRun = simulationsRun;
+    }
+
+    public List<TowerPlacement> getTowerLayout() {
+        return this.towerLayout;
+    }
+
+    /**
+     * Returns the total cost of building and upgrading the towers of the layout.
+     *
+     * @return the cost of the layout
+     */
+    public int getCost() {
+        return this.cost;
+    }
+
+    /**
+     * Returns the number of seeds each layout was played with.
+     *
+     * @return the number of runs per layout
+     */
+    public int getNumSeeds() {
+        return this.numSeeds;
+    }
+
+    public int getWins() {
+        return this.wins;
+    }
+
+    /**
+     * Returns the leaks (lives lost) of the layout, summed over every seed.
+     *
+     * @return the total leaks
+     */
+    public int getTotalLeaks() {
+        return this.totalLeaks;
+    }
+
+    public int getTotalKills() {
+        return this.totalKills;
+    }
+
+    /**
+     * Returns the number of distinct layouts the search looked at, including the ones cut off early.
+     *
+     * @return the number of layouts evaluated
+     */
+    public int getLayoutsEvaluated() {
+        return this.layoutsEvaluated;
+    }
+
+    /**
+     * Returns the number of level runs the search played, counting runs that were cut off early.
+     *
+     * @return the number of simulations run
+     */
+    public long getSimulationsRun() {
+        return this.simulationsRun;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Best layout (cost ").append(this.cost).append("):");
+        for (TowerPlacement placement : this.towerLayout) {
+            sb.append(' ').append(placement);
+        }
+        sb.append(String.format("%n  %d/%d wins, %d leaks, %d kills", this.wins, this.numSeeds, this.totalLeaks, this.totalKills));
+        sb.append(String.format("%n  %d layouts evaluated, %d simulations run", this.layoutsEvaluated, this.simulationsRun));
+        return sb.toString();
+    }
+}
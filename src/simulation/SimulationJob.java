@@ -0,0 +1,37 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One run in a batch: a level file, a tower layout, and the seed for enemy jitter.
+ * Jobs are immutable, so the same job always produces the same result.
+ */
+public class SimulationJob {
+    private String levelFile;
+    private List<TowerPlacement> towerLayout;
+    private long seed;
+
+    public SimulationJob(String levelFile, List<TowerPlacement> towerLayout, long seed) {
+        this.levelFile = levelFile;
+        this.towerLayout = new ArrayList<TowerPlacement>(towerLayout);
+        this.seed = seed;
+    }
+
+    public String getLevelFile() {
+        return this.levelFile;
+    }
+
+    public List<TowerPlacement> getTowerLayout() {
+        return this.towerLayout;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
+    @Override
+    public String toString() {
+        return this.levelFile + " " + this.towerLayout + " seed " + this.seed;
+    }
+}
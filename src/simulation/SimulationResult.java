@@ -0,0 +1,144 @@
+package simulation;
+
+import java.util.ArrayList;
+
+/**
+ * The outcome of a single headless simulation of one level.
+ */
+public class SimulationResult {
+    private int levelNumber;
+    private int totalWaves;
+    private int livesRemaining;
+    private int enemiesKilled;
+    private int enemiesLeaked;
+    private long totalTicks;
+    private boolean cutOff;
+    private ArrayList<Integer> ticksPerWave = new ArrayList<Integer>();
+    private ArrayList<Integer> leaksPerWave = new ArrayList<Integer>();
+    private ArrayList<Integer> killsPerWave = new ArrayList<Integer>();
+
+    public SimulationResult(int levelNumber, int totalWaves) {
+        this.levelNumber = levelNumber;
+        this.totalWaves = totalWaves;
+    }
+
+    /**
+     * Records the outcome of one wave.
+     *
+     * @param ticks the number of ticks the wave lasted
+     * @param leaks the number of enemies that reached the end of their path
+     * @param kills the number of enemies destroyed
+     */
+    void recordWave(int ticks, int leaks, int kills) {
+        this.ticksPerWave.add(ticks);
+        this.leaksPerWave.add(leaks);
+        this.killsPerWave.add(kills);
+        this.totalTicks += ticks;
+        this.enemiesLeaked += leaks;
+        this.enemiesKilled += kills;
+    }
+
+    void setLivesRemaining(int livesRemaining) {
+        this.livesRemaining = livesRemaining;
+    }
+
+    void markCutOff() {
+        this.cutOff = true;
+    }
+
+    public int getLevelNumber() {
+        return this.levelNumber;
+    }
+
+    public int getTotalWaves() {
+        return this.totalWaves;
+    }
+
+    public int getWavesPlayed() {
+        return this.ticksPerWave.size();
+    }
+
+    /**
+     * Returns true if every wave was played and at least one life remains.
+     *
+     * @return true if the level was won, false otherwise
+     */
+    public boolean isWin() {
+        return this.livesRemaining > 0 && this.getWavesPlayed() == this.totalWaves;
+    }
+
+    /**
+     * Returns true if the run was stopped early because it lost more lives than allowed.
+     * The lives remaining and per-wave counts then only cover the waves played so far.
+     *
+     * @return true if the run was cut off, false otherwise
+     * @see HeadlessSimulation#setMaxLivesLost(int)
+     */
+    public boolean isCutOff() {
+        return this.cutOff;
+    }
+
+    public int getLivesRemaining() {
+        return this.livesRemaining;
+    }
+
+    public int getEnemiesKilled() {
+        return this.enemiesKilled;
+    }
+
+    public int getEnemiesLeaked() {
+        return this.enemiesLeaked;
+    }
+
+    public long getTotalTicks() {
+        return this.totalTicks;
+    }
+
+    /**
+     * Returns the number of ticks in the given wave.
+     *
+     * @param waveNumber the wave number (1, 2, 3, ...)
+     * @return the number of ticks the wave lasted
+     */
+    public int getTicksInWave(int waveNumber) {
+        return this.ticksPerWave.get(waveNumber - 1);
+    }
+
+    /**
+     * Returns the number of enemies that leaked in the given wave.
+     *
+     * @param waveNumber the wave number (1, 2, 3, ...)
+     * @return the number of leaks in that wave
+     */
+    public int getLeaksInWave(int waveNumber) {
+        return this.leaksPerWave.get(waveNumber - 1);
+    }
+
+    /**
+     * Returns the number of enemies killed in the given wave.
+     *
+     * @param waveNumber the wave number (1, 2, 3, ...)
+     * @return the number of kills in that wave
+     */
+    public int getKillsInWave(int waveNumber) {
+        return this.killsPerWave.get(waveNumber - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Level ").append(this.levelNumber).append(": ").append(this.isWin() ? "WIN" : "LOSS");
+        if (this.cutOff) {
+            sb.append(" (cut off)");
+        }
+        sb.append(", lives remaining ").append(this.livesRemaining);
+        sb.append(", kills ").append(this.enemiesKilled);
+        sb.append(", leaks ").append(this.enemiesLeaked);
+        sb.append(", ticks ").append(this.totalTicks);
+        for (int wave = 1; wave <= this.getWavesPlayed(); wave++) {
+            sb.append(String.format("%n  Wave %d: %d ticks, %d kills, %d leaks",
+                    wave, this.getTicksInWave(wave), this.getKillsInWave(wave), this.getLeaksInWave(wave)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,461 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gameEngine.Cell;
+import gameEngine.GameState;
+import gameEngine.Level;
+import gameObjects.Tower;
+
+/**
+ * Searches for the tower layout that survives a level best, within the level's starting budget.
+ *
+ * The search space is every tower type, on every cell where a tower may be built,
+ * at every rotation in Tower.ROTATE_DELTA_DEGREES steps, with up to a given number of upgrades.
+ * It is explored with a beam search: each step extends the best layouts found so far
+ * by one more tower or one more upgrade, plays every new layout with each seed,
+ * and keeps the layouts with the fewest leaks (then the most kills, then the lowest cost).
+ *
+ * To keep the number of simulations down:
+ * - rotations whose line of fire never crosses a path cell are never tried,
+ *   and only the rotations crossing the most path cells are kept for each cell
+ * - outcomes are memoized per layout, keyed by its towers, so layouts reached in different orders are played once;
+ *   they are not memoized per wave, since each wave starts from the lives, kills, and tower countdowns
+ *   the earlier waves left behind, so a wave's outcome is only reusable together with every wave before it
+ * - a layout first stops being played as soon as it has leaked more than the worst layout it was extended from;
+ *   if at least beamWidth layouts of the step stayed within that limit, every layout that was cut off ranks behind them,
+ *   and otherwise the cut-off layouts are played again in full, so the cutoff never changes which layouts are kept
+ * - each thread parses the level once and replays it with one reused GameState
+ *
+ * Towers are placed before the first wave, so only the starting budget is spent.
+ */
+public class TowerOptimizer {
+    private static final int NUM_ROTATIONS = 360 / Tower.ROTATE_DELTA_DEGREES;
+    /**
+     * How far apart the line of fire is sampled, in pixels; about the distance a projectile flies per tick.
+     */
+    private static final double RAY_STEP_PIXELS = 10.0;
+    private static final int DEFAULT_BEAM_WIDTH = 8;
+    private static final int DEFAULT_ROTATIONS_PER_CELL = 3;
+    private static final int DEFAULT_MAX_UPGRADES = 3;
+    private static final int NO_LEAK_LIMIT = Integer.MAX_VALUE;
+
+    /**
+     * Orders evaluations from best to worst: fewest leaks, then most kills, then lowest cost.
+     * Ties are broken by the layout key so the search is deterministic.
+     */
+    private static final Comparator<Evaluation> BEST_FIRST = Comparator
+            .comparingInt((Evaluation e) -> e.leaks)
+            .thenComparingInt(e -> -e.kills)
+            .thenComparingInt(e -> e.cost)
+            .thenComparing(e -> e.key);
+
+    private String levelFile;
+    private Level level;
+    private int beamWidth;
+    private int rotationsPerCell;
+    private int maxUpgrades;
+    private long[] seeds;
+    private int numThreads;
+    private boolean sweptCollisions;
+
+    private HashMap<String, Evaluation> memo;
+    private AtomicLong simulationsRun;
+    private ThreadLocal<HeadlessSimulation> simulations;
+
+    /**
+     * Constructs an optimizer for the given level file.
+     *
+     * @param levelFile the level to optimize for
+     */
+    public TowerOptimizer(String levelFile) {
+        this.levelFile = levelFile;
+        this.level = new Level(levelFile);
+        this.beamWidth = DEFAULT_BEAM_WIDTH;
+        this.rotationsPerCell = DEFAULT_ROTATIONS_PER_CELL;
+        this.maxUpgrades = DEFAULT_MAX_UPGRADES;
+        this.seeds = new long[] { 0 };
+        this.numThreads = Runtime.getRuntime().availableProcessors();
+        this.sweptCollisions = false;
+    }
+
+    /**
+     * Sets how many layouts are kept and extended at each step of the search.
+     *
+     * @param beamWidth the number of layouts kept per step
+     */
+    public void setBeamWidth(int beamWidth) {
+        this.beamWidth = beamWidth;
+    }
+
+    /**
+     * Sets how many rotations are tried per cell, keeping the ones whose line of fire
+     * crosses the most path cells.
+     *
+     * @param rotationsPerCell the number of rotations tried per cell
+     */
+    public void setRotationsPerCell(int rotationsPerCell) {
+        this.rotationsPerCell = rotationsPerCell;
+    }
+
+    public void setMaxUpgrades(int maxUpgrades) {
+        this.maxUpgrades = maxUpgrades;
+    }
+
+    /**
+     * Sets the seeds every layout is played with. Layouts are compared by their totals over all seeds.
+     *
+     * @param seeds the random seeds for enemy jitter
+     */
+    public void setSeeds(long[] seeds) {
+        this.seeds = seeds.clone();
+    }
+
+    public void setNumThreads(int numThreads) {
+        this.numThreads = numThreads;
+    }
+
+    public void setSweptCollisions(boolean sweptCollisions) {
+        this.sweptCollisions = sweptCollisions;
+    }
+
+    /**
+     * Searches for the best layout.
+     *
+     * @return the best layout found, with its outcome
+     */
+    public OptimizerResult optimize() {
+        this.memo = new HashMap<String, Evaluation>();
+        this.simulationsRun = new AtomicLong();
+        this.simulations = ThreadLocal.withInitial(this::newSimulation);
+
+        List<TowerPlacement> options = this.findPlacementOptions();
+        ExecutorService executor = Executors.newFixedThreadPool(this.numThreads);
+        try {
+            Evaluation best = this.evaluateAll(executor, Collections.singletonList(new ArrayList<TowerPlacement>()), NO_LEAK_LIMIT).get(0);
+            List<Evaluation> beam = Collections.singletonList(best);
+
+            while (!beam.isEmpty()) {
+                int leakLimit = beam.get(beam.size() - 1).leaks;
+                List<List<TowerPlacement>> children = this.extend(beam, options);
+                List<Evaluation> evaluated = this.evaluateAll(executor, children, leakLimit);
+
+                ArrayList<Evaluation> nextBeam = new ArrayList<Evaluation>();
+                ArrayList<List<TowerPlacement>> cutOffChildren = new ArrayList<List<TowerPlacement>>();
+                for (int i = 0; i < evaluated.size(); i++) {
+                    if (evaluated.get(i).cutOff) {
+                        cutOffChildren.add(children.get(i));
+                    } else {
+                        nextBeam.add(evaluated.get(i));
+                    }
+                }
+                // A cut-off child leaked more than every child within the limit, so it can only be kept if too few stayed within it
+                if (nextBeam.size() < this.beamWidth && !cutOffChildren.isEmpty()) {
+                    nextBeam.addAll(this.evaluateAll(executor, cutOffChildren, NO_LEAK_LIMIT));
+                }
+                nextBeam.sort(BEST_FIRST);
+                beam = nextBeam.subList(0, Math.min(this.beamWidth, nextBeam.size()));
+                if (!beam.isEmpty() && BEST_FIRST.compare(beam.get(0), best) < 0) {
+                    best = beam.get(0);
+                }
+            }
+
+            return new OptimizerResult(best.layout, best.cost, this.seeds.length, best.wins, best.leaks, best.kills,
+                    this.memo.size(), this.simulationsRun.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns every single-tower placement worth trying:
+     * each tower type on each valid cell, at the rotations whose line of fire crosses the most path cells.
+     */
+    private List<TowerPlacement> findPlacementOptions() {
+        ArrayList<TowerPlacement> options = new ArrayList<TowerPlacement>();
+        for (int row = 0; row < this.level.getRows(); row++) {
+            for (int col = 0; col < this.level.getColumns(); col++) {
+                Cell cell = new Cell(row, col);
+                if (!this.level.isValidTowerLocation(cell)) {
+                    continue;
+                }
+
+                // Rotation steps from -(NUM_ROTATIONS / 2 - 1) to NUM_ROTATIONS / 2 cover every angle once
+                ArrayList<int[]> rotations = new ArrayList<int[]>();
+                for (int steps = -(NUM_ROTATIONS / 2 - 1); steps <= NUM_ROTATIONS / 2; steps++) {
+                    int coverage = this.countPathCellsInLineOfFire(cell, steps);
+                    if (coverage > 0) {
+                        rotations.add(new int[] { steps, coverage });
+                    }
+                }
+                rotations.sort((a, b) -> a[1] != b[1] ? b[1] - a[1] : Math.abs(a[0]) - Math.abs(b[0]));
+
+                for (int i = 0; i < Math.min(this.rotationsPerCell, rotations.size()); i++) {
+                    for (String towerType : GameState.TOWER_TYPES) {
+                        options.add(new TowerPlacement(towerType, row, col, rotations.get(i)[0], 0));
+                    }
+                }
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Returns the number of distinct path cells a projectile fired from the given cell
+     * at the given rotation passes over before leaving the level.
+     */
+    private int countPathCellsInLineOfFire(Cell cell, int rotationSteps) {
+        double radians = Math.toRadians(Tower.DEFAULT_LAUNCH_ANGLE_DEGREES + rotationSteps * Tower.ROTATE_DELTA_DEGREES);
+        double dx = Math.cos(radians) * RAY_STEP_PIXELS;
+        double dy = Math.sin(radians) * RAY_STEP_PIXELS;
+        double x = cell.getPixelX() + Cell.SQUARE_SIZE / 2.0;
+        double y = cell.getPixelY() + Cell.SQUARE_SIZE / 2.0;
+
+        boolean[] crossed = new boolean[this.level.getRows() * this.level.getColumns()];
+        int count = 0;
+        int width = this.level.getColumns() * Cell.SQUARE_SIZE;
+        int height = this.level.getRows() * Cell.SQUARE_SIZE;
+        while (x >= 0 && x <= width && y >= 0 && y <= height) {
+            Cell crossedCell = Cell.getCellFromCoordinates((int) x, (int) y);
+            if (this.level.isPathCell(crossedCell)) {
+                int index = crossedCell.getRow() * this.level.getColumns() + crossedCell.getColumn();
+                if (!crossed[index]) {
+                    crossed[index] = true;
+                    count++;
+                }
+            }
+            x += dx;
+            y += dy;
+        }
+        return count;
+    }
+
+    /**
+     * Returns every layout that adds one affordable tower or one affordable upgrade to a layout in the beam,
+     * without duplicates.
+     */
+    private List<List<TowerPlacement>> extend(List<Evaluation> beam, List<TowerPlacement> options) {
+        LinkedHashMap<String, List<TowerPlacement>> children = new LinkedHashMap<String, List<TowerPlacement>>();
+        for (Evaluation parent : beam) {
+            int budgetLeft = this.level.getBudget() - parent.cost;
+
+            boolean[] occupied = new boolean[this.level.getRows() * this.level.getColumns()];
+            for (TowerPlacement placement : parent.layout) {
+                occupied[placement.getRow() * this.level.getColumns() + placement.getColumn()] = true;
+            }
+            for (TowerPlacement option : options) {
+                if (occupied[option.getRow() * this.level.getColumns() + option.getColumn()]
+                        || this.getCost(option) > budgetLeft) {
+                    continue;
+                }
+                ArrayList<TowerPlacement> child = new ArrayList<TowerPlacement>(parent.layout);
+                child.add(option);
+                children.putIfAbsent(layoutKey(child), child);
+            }
+
+            for (int i = 0; i < parent.layout.size(); i++) {
+                TowerPlacement placement = parent.layout.get(i);
+                if (placement.getUpgrades() >= this.maxUpgrades) {
+                    continue;
+                }
+                TowerPlacement upgraded = new TowerPlacement(placement.getTowerType(), placement.getRow(),
+                        placement.getColumn(), placement.getRotationSteps(), placement.getUpgrades() + 1);
+                if (this.getCost(upgraded) - this.getCost(placement) > budgetLeft) {
+                    continue;
+                }
+                ArrayList<TowerPlacement> child = new ArrayList<TowerPlacement>(parent.layout);
+                child.set(i, upgraded);
+                children.putIfAbsent(layoutKey(child), child);
+            }
+        }
+        return new ArrayList<List<TowerPlacement>>(children.values());
+    }
+
+    /**
+     * Evaluates the given layouts across the executor, reusing memoized evaluations where possible.
+     * The evaluations are returned in the same order as the layouts.
+     */
+    private List<Evaluation> evaluateAll(ExecutorService executor, List<? extends List<TowerPlacement>> layouts, int leakLimit) {
+        ArrayList<Evaluation> evaluations = new ArrayList<Evaluation>(Collections.nCopies(layouts.size(), (Evaluation) null));
+        ArrayList<Integer> pending = new ArrayList<Integer>();
+        ArrayList<Callable<Evaluation>> tasks = new ArrayList<Callable<Evaluation>>();
+        for (int i = 0; i < layouts.size(); i++) {
+            List<TowerPlacement> layout = layouts.get(i);
+            Evaluation memoized = this.memo.get(layoutKey(layout));
+            // A run that was cut off only tells us the layout is worse than its limit
+            if (memoized != null && (!memoized.cutOff || memoized.leakLimit >= leakLimit)) {
+                evaluations.set(i, memoized);
+                continue;
+            }
+            pending.add(i);
+            tasks.add(() -> this.evaluate(layout, leakLimit));
+        }
+
+        try {
+            List<Future<Evaluation>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                Evaluation evaluation = futures.get(i).get();
+                this.memo.put(evaluation.key, evaluation);
+                evaluations.set(pending.get(i), evaluation);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while evaluating tower layouts", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to evaluate a tower layout", e.getCause());
+        }
+        return evaluations;
+    }
+
+    /**
+     * Plays the layout with every seed on this thread's simulation,
+     * stopping as soon as the total leaks exceed the limit.
+     */
+    private Evaluation evaluate(List<TowerPlacement> layout, int leakLimit) {
+        HeadlessSimulation simulation = this.simulations.get();
+        simulation.setTowerLayout(layout);
+
+        Evaluation evaluation = new Evaluation(layout, layoutKey(layout), this.getCost(layout), leakLimit);
+        for (long seed : this.seeds) {
+            simulation.setRandomSeed(seed);
+            simulation.setMaxLivesLost(leakLimit == NO_LEAK_LIMIT ? NO_LEAK_LIMIT : leakLimit - evaluation.leaks);
+            SimulationResult result = simulation.run();
+            this.simulationsRun.incrementAndGet();
+
+            evaluation.leaks += result.getEnemiesLeaked();
+            evaluation.kills += result.getEnemiesKilled();
+            if (result.isWin()) {
+                evaluation.wins++;
+            }
+            if (result.isCutOff()) {
+                evaluation.cutOff = true;
+                break;
+            }
+        }
+        return evaluation;
+    }
+
+    private HeadlessSimulation newSimulation() {
+        HeadlessSimulation simulation = new HeadlessSimulation(new Level(this.levelFile), new ArrayList<TowerPlacement>());
+        simulation.setSweptCollisions(this.sweptCollisions);
+        simulation.setFixedPointKinematics(true);
+        return simulation;
+    }
+
+    private int getCost(List<TowerPlacement> layout) {
+        int cost = 0;
+        for (TowerPlacement placement : layout) {
+            cost += this.getCost(placement);
+        }
+        return cost;
+    }
+
+    /**
+     * Returns the cost of building and upgrading one tower.
+     */
+    private int getCost(TowerPlacement placement) {
+        Tower tower = GameState.constructNewTower(placement.getTowerType(), new Cell(placement.getRow(), placement.getColumn()));
+        int cost = tower.getCostToBuild();
+        for (int i = 0; i < placement.getUpgrades(); i++) {
+            cost += tower.getCostToUpgrade();
+            tower.upgrade();
+        }
+        return cost;
+    }
+
+    /**
+     * Returns a key identifying the layout regardless of the order of its towers.
+     */
+    private static String layoutKey(List<TowerPlacement> layout) {
+        ArrayList<String> placements = new ArrayList<String>();
+        for (TowerPlacement placement : layout) {
+            placements.add(placement.toString());
+        }
+        Collections.sort(placements);
+        return String.join(" ", placements);
+    }
+
+    /**
+     * The outcome of one layout over every seed.
+     */
+    private static class Evaluation {
+        private List<TowerPlacement> layout;
+        private String key;
+        private int cost;
+        /**
+         * The leak limit the layout was played with; only meaningful if it was cut off.
+         */
+        private int leakLimit;
+        private int wins;
+        private int leaks;
+        private int kills;
+        private boolean cutOff;
+
+        private Evaluation(List<TowerPlacement> layout, String key, int cost, int leakLimit) {
+            this.layout = layout;
+            this.key = key;
+            this.cost = cost;
+            this.leakLimit = leakLimit;
+        }
+    }
+
+    /**
+     * Optimizes the tower layout for one level and prints the best layout found.
+     *
+     * Usage: TowerOptimizer [--beam=N] [--rotations=N] [--max-upgrades=N] [--seeds=N] [--threads=T] [--swept] levelFile
+     *
+     * @param args the options, then the level file
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        if (args.length == 0) {
+            System.err.println("Usage: TowerOptimizer [--beam=N] [--rotations=N] [--max-upgrades=N] [--seeds=N] [--threads=T] [--swept] levelFile");
+            System.exit(1);
+        }
+        TowerOptimizer optimizer = new TowerOptimizer(args[args.length - 1]);
+        for (int i = 0; i < args.length - 1; i++) {
+            String option = args[i];
+            if (option.startsWith("--beam=")) {
+                optimizer.setBeamWidth(Integer.parseInt(option.substring("--beam=".length())));
+            } else if (option.startsWith("--rotations=")) {
+                optimizer.setRotationsPerCell(Integer.parseInt(option.substring("--rotations=".length())));
+            } else if (option.startsWith("--max-upgrades=")) {
+                optimizer.setMaxUpgrades(Integer.parseInt(option.substring("--max-upgrades=".length())));
+            } else if (option.startsWith("--seeds=")) {
+                long[] seeds = new long[Integer.parseInt(option.substring("--seeds=".length()))];
+                for (int s = 0; s < seeds.length; s++) {
+                    seeds[s] = s;
+                }
+                optimizer.setSeeds(seeds);
+            } else if (option.startsWith("--threads=")) {
+                optimizer.setNumThreads(Integer.parseInt(option.substring("--threads=".length())));
+            } else if (option.equals("--swept")) {
+                optimizer.setSweptCollisions(true);
+            } else {
+                System.err.println("Unknown option: " + option);
+                System.exit(1);
+            }
+        }
+
+        long start = System.nanoTime();
+        OptimizerResult result = optimizer.optimize();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(result);
+        System.out.printf("%.3f s (%.0f simulations/s)%n", seconds, result.getSimulationsRun() / seconds);
+    }
+}
@@ -0,0 +1,96 @@
+package simulation;
+
+import gameEngine.Cell;
+import gameEngine.GameState;
+
+/**
+ * Describes one tower in a tower layout:
+ * its type, the cell it is placed on, how far it is rotated, and how many times it is upgraded.
+ *
+ * Placements are applied through the same actions a player uses
+ * (select type, click to place, click to rotate, upgrade),
+ * so a layout costs exactly what it would cost in the game.
+ */
+public class TowerPlacement {
+    private String towerType;
+    private int row;
+    private int col;
+    /**
+     * The number of rotations by Tower.ROTATE_DELTA_DEGREES.
+     * Positive values rotate left (as with a left click), negative values rotate right.
+     */
+    private int rotationSteps;
+    private int upgrades;
+
+    public TowerPlacement(String towerType, int row, int col, int rotationSteps, int upgrades) {
+        this.towerType = towerType;
+        this.row = row;
+        this.col = col;
+        this.rotationSteps = rotationSteps;
+        this.upgrades = upgrades;
+    }
+
+    public TowerPlacement(String towerType, int row, int col) {
+        this(towerType, row, col, 0, 0);
+    }
+
+    /**
+     * Parses a placement of the form "Type:row:col[:rotationSteps[:upgrades]]",
+     * for example "Archer:2:4:-3:1".
+     *
+     * @param spec the placement specification
+     * @return the parsed placement
+     */
+    public static TowerPlacement parse(String spec) {
+        String[] tokens = spec.split(":");
+        if (tokens.length < 3 || tokens.length > 5) {
+            throw new IllegalArgumentException("Expected Type:row:col[:rotationSteps[:upgrades]] but got: " + spec);
+        }
+        int rotationSteps = tokens.length > 3 ? Integer.parseInt(tokens[3]) : 0;
+        int upgrades = tokens.length > 4 ? Integer.parseInt(tokens[4]) : 0;
+        return new TowerPlacement(tokens[0], Integer.parseInt(tokens[1]), Integer.parseInt(tokens[2]), rotationSteps, upgrades);
+    }
+
+    /**
+     * Places, rotates, and upgrades this tower in the given game state.
+     *
+     * @param gameState the game state to place the tower in
+     */
+    public void applyTo(GameState gameState) {
+        Cell cell = new Cell(this.row, this.col);
+        gameState.setSelectedTowerType(this.towerType);
+        // The first click places (and selects) the tower, later clicks rotate it
+        gameState.placeOrRotateTower(cell, true);
+        for (int i = 0; i < Math.abs(this.rotationSteps); i++) {
+            gameState.placeOrRotateTower(cell, this.rotationSteps > 0);
+        }
+        for (int i = 0; i < this.upgrades; i++) {
+            gameState.upgradeSelectedTower();
+        }
+    }
+
+    public String getTowerType() {
+        return this.towerType;
+    }
+
+    public int getRow() {
+        return this.row;
+    }
+
+    public int getColumn() {
+        return this.col;
+    }
+
+    public int getRotationSteps() {
+        return this.rotationSteps;
+    }
+
+    public int getUpgrades() {
+        return this.upgrades;
+    }
+
+    @Override
+    public String toString() {
+        return this.towerType + ":" + this.row + ":" + this.col + ":" + this.rotationSteps + ":" + this.upgrades;
+    }
+}